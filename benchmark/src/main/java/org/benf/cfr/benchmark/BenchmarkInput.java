@@ -0,0 +1,74 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.state.ClassFileSourceImpl;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.AnalysisType;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The jar being benchmarked, shared by all benchmarks in a trial.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkInput {
+    @Param({"testdata", "synthetic"})
+    public String input;
+
+    private File workDir;
+    private File jar;
+    private List<String> classPaths;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        workDir = File.createTempFile("cfr-bench", "");
+        if (!workDir.delete() || !workDir.mkdir()) throw new IOException("Can't create " + workDir);
+        jar = InputJars.build(input, workDir);
+        classPaths = InputJars.classEntries(jar);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InputJars.delete(workDir);
+    }
+
+    public File getJar() {
+        return jar;
+    }
+
+    /*
+     * Paths of every class file in the jar, in name order.
+     */
+    public List<String> getClassPaths() {
+        return classPaths;
+    }
+
+    public Map<String, String> getOptionsMap() {
+        Map<String, String> res = new HashMap<String, String>();
+        res.put(OptionsImpl.SHOW_CFR_VERSION.getName(), "false");
+        return res;
+    }
+
+    /*
+     * A fresh common state, with the benchmark jar loaded as the jar under analysis.
+     */
+    public DCCommonState newState() {
+        Options options = OptionsImpl.getFactory().create(getOptionsMap());
+        ClassFileSourceImpl classFileSource = new ClassFileSourceImpl(options);
+        classFileSource.informAnalysisRelativePathDetail(null, null);
+        DCCommonState state = new DCCommonState(options, classFileSource);
+        state.explicitlyLoadJar(jar.getPath(), AnalysisType.JAR);
+        return state;
+    }
+}
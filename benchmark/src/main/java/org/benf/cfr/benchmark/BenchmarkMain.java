@@ -0,0 +1,36 @@
+package org.benf.cfr.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/*
+ * As the standard JMH main, but always reports allocation rates alongside throughput.
+ *
+ * Usage as for JMH, eg
+ *
+ * java -jar target/benchmarks.jar MethodAnalysis -p input=synthetic -jvmArgsAppend -Dcfr.bench.synthetic.classes=1000
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions cmdLine = new CommandLineOptions(args);
+        if (cmdLine.shouldHelp()) {
+            cmdLine.showHelp();
+            return;
+        }
+        Runner runner = new Runner(new OptionsBuilder()
+                .parent(cmdLine)
+                .addProfiler(GCProfiler.class)
+                .build());
+        if (cmdLine.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+    }
+}
@@ -0,0 +1,54 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class file parsing - the ClassFile constructor, including the constant pool.
+ * One operation parses every class in the input jar.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassParseBenchmark {
+    private DCCommonState state;
+    private List<String> paths;
+    private List<byte[]> contents;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkInput input) {
+        state = input.newState();
+        paths = input.getClassPaths();
+        contents = new ArrayList<byte[]>(paths.size());
+        for (String path : paths) {
+            contents.add(state.getClassFileContent(path));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (int x = 0, len = paths.size(); x < len; ++x) {
+            blackhole.consume(new ClassFile(new BaseByteData(contents.get(x)), paths.get(x), state));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Whole jar decompilation through the public API, with output discarded.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DriverBenchmark {
+
+    @Benchmark
+    public void analyseJar(BenchmarkInput input, final Blackhole blackhole) {
+        OutputSinkFactory sinkFactory = new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+                return Collections.singletonList(SinkClass.STRING);
+            }
+
+            @Override
+            public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+                return new Sink<T>() {
+                    @Override
+                    public void write(T sinkable) {
+                        blackhole.consume(sinkable);
+                    }
+                };
+            }
+        };
+        CfrDriver driver = new CfrDriver.Builder()
+                .withOptions(input.getOptionsMap())
+                .withOutputSink(sinkFactory)
+                .build();
+        driver.analyse(Collections.singletonList(input.getJar().getPath()));
+    }
+}
@@ -0,0 +1,84 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.state.TypeUsageCollectingDumper;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.output.IllegalIdentifierDump;
+import org.benf.cfr.reader.util.output.MethodErrorCollector;
+import org.benf.cfr.reader.util.output.StringStreamDumper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Emitting already analysed classes as java through StringStreamDumper.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class DumpBenchmark {
+    private static final MethodErrorCollector NOP_ERROR_COLLECTOR = new MethodErrorCollector() {
+        @Override
+        public void addSummaryError(Method method, String s) {
+        }
+    };
+
+    private Options options;
+    private IllegalIdentifierDump illegalIdentifierDump;
+    private final List<ClassFile> classFiles = new ArrayList<ClassFile>();
+    private final List<TypeUsageInformation> typeUsages = new ArrayList<TypeUsageInformation>();
+
+    /*
+     * Analyse each top level class the same way Driver.doClass does, and keep the result.
+     */
+    @Setup(Level.Trial)
+    public void setup(BenchmarkInput input) {
+        DCCommonState state = input.newState();
+        options = state.getOptions();
+        illegalIdentifierDump = IllegalIdentifierDump.Factory.get(options);
+        for (String path : input.getClassPaths()) {
+            try {
+                ClassFile classFile = state.getClassFileMaybePath(path);
+                if (classFile.isInnerClass()) continue;
+                state.configureWith(classFile);
+                classFile.loadInnerClasses(state);
+                TypeUsageCollectingDumper collectingDumper = new TypeUsageCollectingDumper(options, classFile);
+                classFile.analyseTop(state, collectingDumper);
+                classFiles.add(classFile);
+                typeUsages.add(collectingDumper.getRealTypeUsageInformation());
+            } catch (RuntimeException ignore) {
+                // Not a useful dump benchmark input.
+            }
+        }
+    }
+
+    @Benchmark
+    public void dump(Blackhole blackhole) {
+        for (int x = 0, len = classFiles.size(); x < len; ++x) {
+            StringBuilder sb = new StringBuilder();
+            StringStreamDumper dumper = new StringStreamDumper(NOP_ERROR_COLLECTOR, sb, typeUsages.get(x), options, illegalIdentifierDump);
+            classFiles.get(x).dump(dumper);
+            dumper.close();
+            blackhole.consume(sb);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.benf.cfr.benchmark;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/*
+ * Builds the jars the benchmarks run over.
+ *
+ * testdata  : the precompiled classes from the decompilation-test submodule, packed into a jar.
+ * synthetic : a large generated code base, compiled with the running JDK's javac.
+ */
+final class InputJars {
+    static final String TESTDATA_PROPERTY = "cfr.bench.testdata";
+    static final String SYNTHETIC_CLASSES_PROPERTY = "cfr.bench.synthetic.classes";
+
+    private static final String TESTDATA_DEFAULT = "decompilation-test/test-data/precompiled_tests/java_8";
+
+    private InputJars() {
+    }
+
+    static File build(String input, File workDir) throws IOException {
+        if ("testdata".equals(input)) return testDataJar(workDir);
+        if ("synthetic".equals(input)) return syntheticJar(workDir, Integer.getInteger(SYNTHETIC_CLASSES_PROPERTY, 400));
+        throw new IllegalArgumentException("Unknown benchmark input " + input);
+    }
+
+    private static File testDataJar(File workDir) throws IOException {
+        File root = findTestData();
+        TreeMap<String, File> classes = new TreeMap<String, File>();
+        collectClasses(root, "", classes);
+        if (classes.isEmpty()) {
+            throw new IllegalStateException("No class files under " + root);
+        }
+        File jar = new File(workDir, "testdata.jar");
+        writeJar(jar, classes);
+        return jar;
+    }
+
+    private static File findTestData() {
+        String explicit = System.getProperty(TESTDATA_PROPERTY);
+        if (explicit != null) {
+            File file = new File(explicit);
+            if (!file.isDirectory()) throw new IllegalStateException(TESTDATA_PROPERTY + " (" + explicit + ") is not a directory");
+            return file;
+        }
+        for (String candidate : new String[]{TESTDATA_DEFAULT, "../" + TESTDATA_DEFAULT}) {
+            File file = new File(candidate);
+            if (file.isDirectory()) return file;
+        }
+        throw new IllegalStateException("Can't find decompilation test data - clone with --recurse-submodules, or set -D" + TESTDATA_PROPERTY);
+    }
+
+    private static void collectClasses(File dir, String prefix, TreeMap<String, File> res) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectClasses(child, prefix + child.getName() + "/", res);
+            } else if (child.getName().endsWith(".class")) {
+                res.put(prefix + child.getName(), child);
+            }
+        }
+    }
+
+    private static File syntheticJar(File workDir, int classCount) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Synthetic input needs a JDK (no system java compiler available)");
+        }
+        File srcDir = new File(workDir, "synthetic-src");
+        File classDir = new File(workDir, "synthetic-classes");
+        if (!classDir.mkdirs()) throw new IOException("Can't create " + classDir);
+
+        List<String> args = new ArrayList<String>();
+        args.add("-g");
+        args.add("-nowarn");
+        args.add("-d");
+        args.add(classDir.getPath());
+        for (int x = 0; x < classCount; ++x) {
+            String pkg = "synthetic.p" + (x % 16);
+            File pkgDir = new File(srcDir, pkg.replace('.', '/'));
+            if (!pkgDir.isDirectory() && !pkgDir.mkdirs()) throw new IOException("Can't create " + pkgDir);
+            File src = new File(pkgDir, "Synth" + x + ".java");
+            Writer writer = new OutputStreamWriter(new FileOutputStream(src), "UTF-8");
+            try {
+                writer.write(SyntheticSource.generate(pkg, x));
+            } finally {
+                writer.close();
+            }
+            args.add(src.getPath());
+        }
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int rc = compiler.run(null, null, errors, args.toArray(new String[0]));
+        if (rc != 0) {
+            throw new IllegalStateException("Failed to compile synthetic sources:\n" + errors.toString("UTF-8"));
+        }
+        TreeMap<String, File> classes = new TreeMap<String, File>();
+        collectClasses(classDir, "", classes);
+        File jar = new File(workDir, "synthetic.jar");
+        writeJar(jar, classes);
+        return jar;
+    }
+
+    private static void writeJar(File jar, TreeMap<String, File> classes) throws IOException {
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (String name : classes.keySet()) {
+                out.putNextEntry(new JarEntry(name));
+                InputStream in = new FileInputStream(classes.get(name));
+                try {
+                    copy(in, out);
+                } finally {
+                    in.close();
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    static List<String> classEntries(File jar) throws IOException {
+        List<String> res = new ArrayList<String>();
+        JarFile jarFile = new JarFile(jar);
+        try {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                if (entry.getName().endsWith(".class")) res.add(entry.getName());
+            }
+        } finally {
+            jarFile.close();
+        }
+        Collections.sort(res);
+        return res;
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = in.read(buffer)) > 0) out.write(buffer, 0, len);
+    }
+}
@@ -0,0 +1,70 @@
+package org.benf.cfr.benchmark;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.util.bytestream.BaseByteData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Per method code analysis - Op01 -> Op02 (including stack population), the Op03 rewrite
+ * pipeline and Op04 structuring, with recovery passes where the first pass fails.
+ *
+ * Methods cache their analysis, so every invocation analyses freshly parsed class files;
+ * parsing happens in the (untimed) invocation setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class MethodAnalysisBenchmark {
+    private DCCommonState state;
+    private List<String> paths;
+    private List<byte[]> contents;
+    private List<Method> methods;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkInput input) {
+        state = input.newState();
+        paths = input.getClassPaths();
+        contents = new ArrayList<byte[]>(paths.size());
+        for (String path : paths) {
+            contents.add(state.getClassFileContent(path));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() {
+        methods = new ArrayList<Method>();
+        for (int x = 0, len = paths.size(); x < len; ++x) {
+            ClassFile classFile = new ClassFile(new BaseByteData(contents.get(x)), paths.get(x), state);
+            for (Method method : classFile.getMethods()) {
+                if (method.hasCodeAttribute()) methods.add(method);
+            }
+        }
+    }
+
+    @Benchmark
+    public void analyse(Blackhole blackhole) {
+        for (Method method : methods) {
+            blackhole.consume(method.getAnalysis());
+        }
+    }
+}
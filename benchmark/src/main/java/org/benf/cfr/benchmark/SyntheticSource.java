@@ -0,0 +1,147 @@
+package org.benf.cfr.benchmark;
+
+/*
+ * Generates the source of one synthetic class.  Each class mixes the constructs the
+ * structuring passes have to work hardest on - nested loops with breaks, switches (int and
+ * string), try / catch / finally, synchronized blocks, lambdas, inner and anonymous classes.
+ *
+ * The seed varies constants and which optional members are present, so the code base isn't
+ * just the same method repeated.
+ */
+final class SyntheticSource {
+    private SyntheticSource() {
+    }
+
+    static String generate(String pkg, int seed) {
+        String name = "Synth" + seed;
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("import java.util.*;\n");
+        sb.append("import java.util.function.*;\n\n");
+        sb.append("public class ").append(name).append(" implements Comparable<").append(name).append("> {\n");
+        sb.append("    private final Map<String, List<Integer>> buckets = new HashMap<String, List<Integer>>();\n");
+        sb.append("    private final Object lock = new Object();\n");
+        sb.append("    private int counter;\n");
+        sb.append("    private long total = ").append(seed * 31L).append("L;\n\n");
+
+        sb.append("    public int loops(int[] data, int limit) {\n");
+        sb.append("        int acc = 0;\n");
+        sb.append("        outer:\n");
+        sb.append("        for (int i = 0; i < data.length; ++i) {\n");
+        sb.append("            for (int j = i; j < data.length; j += ").append(1 + seed % 3).append(") {\n");
+        sb.append("                if (data[j] > limit) continue outer;\n");
+        sb.append("                if (data[j] == ").append(seed % 97).append(") break outer;\n");
+        sb.append("                acc += data[i] * data[j];\n");
+        sb.append("            }\n");
+        sb.append("            while (acc > limit && acc % 2 == 0) acc >>= 1;\n");
+        sb.append("        }\n");
+        sb.append("        do { acc ^= limit; } while (acc < 0);\n");
+        sb.append("        return acc;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    public String switches(int x, String s) {\n");
+        sb.append("        String res;\n");
+        sb.append("        switch (x % 6) {\n");
+        sb.append("            case 0: res = \"zero\"; break;\n");
+        sb.append("            case 1:\n");
+        sb.append("            case 2: res = \"small\" + x; break;\n");
+        sb.append("            case ").append(3 + seed % 3).append(": return s;\n");
+        sb.append("            default: res = null;\n");
+        sb.append("        }\n");
+        sb.append("        switch (s) {\n");
+        sb.append("            case \"alpha").append(seed).append("\": res = res + \"a\"; break;\n");
+        sb.append("            case \"beta\": res = \"b\" + res; break;\n");
+        sb.append("            case \"gamma\": if (res == null) return \"g\"; break;\n");
+        sb.append("            default: break;\n");
+        sb.append("        }\n");
+        sb.append("        return res == null ? s : res;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    public int exceptions(String in) {\n");
+        sb.append("        int res = -1;\n");
+        sb.append("        try {\n");
+        sb.append("            res = Integer.parseInt(in.trim());\n");
+        sb.append("            if (res < 0) throw new IllegalStateException(\"negative \" + res);\n");
+        sb.append("        } catch (NumberFormatException e) {\n");
+        sb.append("            res = in.length();\n");
+        sb.append("        } catch (IllegalStateException | NullPointerException e) {\n");
+        sb.append("            res = 0;\n");
+        sb.append("        } finally {\n");
+        sb.append("            counter++;\n");
+        sb.append("        }\n");
+        sb.append("        synchronized (lock) {\n");
+        sb.append("            total += res;\n");
+        sb.append("            if (total > ").append(1000 + seed).append(") { total = 0; return res; }\n");
+        sb.append("        }\n");
+        sb.append("        return res + counter;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    public List<String> generics(Collection<? extends Number> values) {\n");
+        sb.append("        List<String> res = new ArrayList<String>();\n");
+        sb.append("        for (Number n : values) {\n");
+        sb.append("            String key = n.intValue() % 2 == 0 ? \"even\" : \"odd\";\n");
+        sb.append("            List<Integer> bucket = buckets.get(key);\n");
+        sb.append("            if (bucket == null) { bucket = new ArrayList<Integer>(); buckets.put(key, bucket); }\n");
+        sb.append("            bucket.add(n.intValue());\n");
+        sb.append("            res.add(key + ':' + n);\n");
+        sb.append("        }\n");
+        sb.append("        Collections.sort(res, new Comparator<String>() {\n");
+        sb.append("            public int compare(String a, String b) { return b.length() - a.length(); }\n");
+        sb.append("        });\n");
+        sb.append("        return res;\n");
+        sb.append("    }\n\n");
+
+        sb.append("    public int lambdas(List<Integer> in) {\n");
+        sb.append("        Function<Integer, Integer> f = x -> x * ").append(seed % 7 + 2).append(";\n");
+        sb.append("        Predicate<Integer> p = x -> x % 3 != 0 && x > counter;\n");
+        sb.append("        int res = 0;\n");
+        sb.append("        for (Integer i : in) if (p.test(i)) res += f.apply(i);\n");
+        sb.append("        Runnable r = () -> counter += in.size();\n");
+        sb.append("        r.run();\n");
+        sb.append("        return res;\n");
+        sb.append("    }\n\n");
+
+        if (seed % 2 == 0) {
+            sb.append("    public static long arithmetic(long a, int b, double c) {\n");
+            sb.append("        long r = a;\n");
+            sb.append("        for (int i = 0; i < b; i++) {\n");
+            sb.append("            r = (r << 3) ^ (r >>> 5) ^ i;\n");
+            sb.append("            if ((r & 1) == 0 && c > i) r += (long) (c * i);\n");
+            sb.append("            else if (r < 0) r = -r;\n");
+            sb.append("        }\n");
+            sb.append("        return r;\n");
+            sb.append("    }\n\n");
+        }
+
+        if (seed % 3 == 0) {
+            sb.append("    public enum Kind { FIRST, SECOND, THIRD }\n\n");
+            sb.append("    public int enumSwitch(Kind k) {\n");
+            sb.append("        switch (k) {\n");
+            sb.append("            case FIRST: return 1;\n");
+            sb.append("            case SECOND: return counter;\n");
+            sb.append("            default: return -1;\n");
+            sb.append("        }\n");
+            sb.append("    }\n\n");
+        }
+
+        sb.append("    public class Inner {\n");
+        sb.append("        private int value = counter + ").append(seed).append(";\n");
+        sb.append("        public int bump() { return value += counter++; }\n");
+        sb.append("    }\n\n");
+
+        sb.append("    public static class Nested<T extends Comparable<T>> {\n");
+        sb.append("        private final List<T> items = new ArrayList<T>();\n");
+        sb.append("        public T max() {\n");
+        sb.append("            T best = null;\n");
+        sb.append("            for (T t : items) if (best == null || t.compareTo(best) > 0) best = t;\n");
+        sb.append("            return best;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+
+        sb.append("    public int compareTo(").append(name).append(" o) {\n");
+        sb.append("        return Long.compare(total, o.total);\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Indices inserted with justBefore / justAfter, checked against a plain list of where they should be.
+ *
+ * Labels halve the gap they're inserted into, so anything which keeps inserting in the same place runs out of
+ * room after ~60 insertions, and has to relabel.
+ */
+class InstrIndexTest {
+    private final InstrIndex start = new InstrIndex(5);
+    private final List<InstrIndex> reference = new ArrayList<>();
+
+    InstrIndexTest() {
+        reference.add(start);
+    }
+
+    private void insertBefore(int position) {
+        InstrIndex res = reference.get(position).justBefore();
+        reference.add(position, res);
+        checkNeighbours(position);
+    }
+
+    private void insertAfter(int position) {
+        InstrIndex res = reference.get(position).justAfter();
+        reference.add(position + 1, res);
+        checkNeighbours(position + 1);
+    }
+
+    private void checkNeighbours(int position) {
+        InstrIndex inserted = reference.get(position);
+        if (position > 0) assertOrdered(reference.get(position - 1), inserted);
+        if (position < reference.size() - 1) assertOrdered(inserted, reference.get(position + 1));
+    }
+
+    private static void assertOrdered(InstrIndex a, InstrIndex b) {
+        assertTrue(a.compareTo(b) < 0, a + " should be before " + b);
+        assertTrue(b.compareTo(a) > 0, b + " should be after " + a);
+    }
+
+    private void checkAll() {
+        for (int x = 0; x < reference.size(); ++x) {
+            InstrIndex a = reference.get(x);
+            assertEquals(x == 0 ? "lbl5" : "lbl5." + x, a.toString());
+            for (int y = 0; y < reference.size(); ++y) {
+                assertEquals(Integer.signum(Integer.compare(x, y)), Integer.signum(a.compareTo(reference.get(y))), a + " vs " + reference.get(y));
+            }
+        }
+        // Other indices still order by index alone.
+        assertTrue(new InstrIndex(4).compareTo(reference.get(0)) < 0);
+        assertTrue(new InstrIndex(6).compareTo(reference.get(reference.size() - 1)) > 0);
+    }
+
+    @Test
+    void append() {
+        for (int x = 0; x < 500; ++x) {
+            insertAfter(reference.size() - 1);
+        }
+        checkAll();
+    }
+
+    @Test
+    void prepend() {
+        for (int x = 0; x < 500; ++x) {
+            insertBefore(0);
+        }
+        checkAll();
+    }
+
+    @Test
+    void samePoint() {
+        // Always directly after start, and directly before what was, originally, the next one.
+        insertAfter(0);
+        InstrIndex next = reference.get(1);
+        for (int x = 0; x < 300; ++x) {
+            insertAfter(0);
+            insertBefore(reference.indexOf(next));
+        }
+        checkAll();
+    }
+
+    @Test
+    void appendThenFillMiddle() {
+        for (int x = 0; x < 100; ++x) {
+            insertAfter(reference.size() - 1);
+        }
+        int middle = reference.size() / 2;
+        for (int x = 0; x < 300; ++x) {
+            insertAfter(middle);
+        }
+        checkAll();
+    }
+
+    @Test
+    void random() {
+        Random random = new Random(1234);
+        for (int x = 0; x < 2000; ++x) {
+            int position = random.nextInt(reference.size());
+            // Favour a few hot spots, so some gaps run out of room.
+            if (random.nextInt(3) == 0) position = Math.min(position, 3);
+            if (random.nextBoolean()) {
+                insertBefore(position);
+            } else {
+                insertAfter(position);
+            }
+            if (x % 250 == 0) checkAll();
+        }
+        checkAll();
+    }
+}
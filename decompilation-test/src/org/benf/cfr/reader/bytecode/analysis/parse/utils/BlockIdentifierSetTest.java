@@ -0,0 +1,245 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockIdentifierSetTest {
+    // Enough to span several words of the bitset.
+    private static final int BLOCK_COUNT = 200;
+
+    private final BlockIdentifierFactory factory = new BlockIdentifierFactory();
+    private final List<BlockIdentifier> blocks = new ArrayList<>();
+    // Not from factory, so these go in the side set.
+    private final List<BlockIdentifier> foreign = new ArrayList<>();
+
+    BlockIdentifierSetTest() {
+        for (int x = 0; x < BLOCK_COUNT; ++x) {
+            blocks.add(factory.getNextBlockIdentifier(BlockType.SIMPLE_IF_TAKEN));
+        }
+        BlockIdentifierFactory otherFactory = new BlockIdentifierFactory();
+        for (int x = 0; x < 3; ++x) {
+            foreign.add(new BlockIdentifier(x, BlockType.TRYBLOCK));
+            foreign.add(otherFactory.getNextBlockIdentifier(BlockType.TRYBLOCK));
+        }
+    }
+
+    @Test
+    void addAndRemove() {
+        BlockIdentifierSet set = new BlockIdentifierSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(blocks.get(70)));
+        assertFalse(set.add(blocks.get(70)));
+        assertTrue(set.add(blocks.get(3)));
+        assertTrue(set.add(foreign.get(0)));
+        assertFalse(set.add(foreign.get(0)));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(blocks.get(70)));
+        assertFalse(set.contains(blocks.get(71)));
+        assertFalse(set.contains(blocks.get(199)));
+        assertTrue(set.contains(foreign.get(0)));
+        assertFalse(set.contains(foreign.get(1)));
+        assertFalse(set.contains("block3"));
+
+        assertTrue(set.remove(blocks.get(70)));
+        assertFalse(set.remove(blocks.get(70)));
+        assertFalse(set.remove(blocks.get(199)));
+        assertTrue(set.remove(foreign.get(0)));
+        assertFalse(set.remove(foreign.get(0)));
+        assertEquals(Arrays.asList(blocks.get(3)), new ArrayList<>(set));
+
+        set.add(foreign.get(1));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    void iteratesLocalsInIndexOrderThenSideSet() {
+        BlockIdentifierSet set = new BlockIdentifierSet();
+        set.add(foreign.get(0));
+        set.add(blocks.get(130));
+        set.add(blocks.get(0));
+        set.add(blocks.get(64));
+        List<BlockIdentifier> expected = Arrays.asList(blocks.get(0), blocks.get(64), blocks.get(130), foreign.get(0));
+        assertEquals(expected, new ArrayList<>(set));
+
+        Iterator<BlockIdentifier> it = set.iterator();
+        for (int x = 0; x < expected.size(); ++x) it.next();
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    @Test
+    void iteratorRemoveAfterHasNextPastLastLocal() {
+        BlockIdentifierSet set = new BlockIdentifierSet();
+        set.add(blocks.get(5));
+        set.add(blocks.get(6));
+        set.add(foreign.get(0));
+
+        Iterator<BlockIdentifier> it = set.iterator();
+        assertEquals(blocks.get(5), it.next());
+        assertEquals(blocks.get(6), it.next());
+        // Starts on the side set - but the element to remove is still the last local.
+        assertTrue(it.hasNext());
+        it.remove();
+        assertEquals(foreign.get(0), it.next());
+        assertFalse(it.hasNext());
+
+        assertEquals(Arrays.asList(blocks.get(5), foreign.get(0)), new ArrayList<>(set));
+    }
+
+    @Test
+    void iteratorRemoveEverything() {
+        BlockIdentifierSet set = new BlockIdentifierSet();
+        set.addAll(blocks.subList(60, 70));
+        set.addAll(foreign);
+
+        Iterator<BlockIdentifier> it = set.iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        int seen = 0;
+        while (it.hasNext()) {
+            it.next();
+            it.hasNext();
+            it.remove();
+            ++seen;
+        }
+        assertEquals(10 + foreign.size(), seen);
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+        assertThrows(IllegalStateException.class, it::remove);
+    }
+
+    @Test
+    void bulkOperationsBetweenSets() {
+        BlockIdentifierSet a = new BlockIdentifierSet(blocks.subList(0, 100));
+        BlockIdentifierSet b = new BlockIdentifierSet(blocks.subList(50, 200));
+
+        assertFalse(a.containsAll(b));
+        assertTrue(a.containsAll(new BlockIdentifierSet(blocks.subList(10, 20))));
+        assertTrue(a.containsAll(new BlockIdentifierSet()));
+
+        BlockIdentifierSet union = new BlockIdentifierSet(a);
+        assertTrue(union.addAll(b));
+        assertFalse(union.addAll(b));
+        assertEquals(new LinkedHashSet<>(blocks), union);
+        assertEquals(BLOCK_COUNT, union.size());
+
+        BlockIdentifierSet difference = new BlockIdentifierSet(a);
+        assertTrue(difference.removeAll(b));
+        assertFalse(difference.removeAll(b));
+        assertEquals(new LinkedHashSet<>(blocks.subList(0, 50)), difference);
+        assertEquals(50, difference.size());
+
+        BlockIdentifierSet intersection = new BlockIdentifierSet(a);
+        assertTrue(intersection.retainAll(b));
+        assertFalse(intersection.retainAll(b));
+        assertEquals(new LinkedHashSet<>(blocks.subList(50, 100)), intersection);
+        assertEquals(50, intersection.size());
+
+        assertTrue(intersection.retainAll(new BlockIdentifierSet()));
+        assertTrue(intersection.isEmpty());
+    }
+
+    @Test
+    void bulkOperationsWithSideSet() {
+        BlockIdentifierSet a = new BlockIdentifierSet(blocks.subList(0, 10));
+        a.add(foreign.get(0));
+        a.add(foreign.get(1));
+        BlockIdentifierSet b = new BlockIdentifierSet(blocks.subList(5, 15));
+        b.add(foreign.get(1));
+        b.add(foreign.get(2));
+
+        BlockIdentifierSet union = new BlockIdentifierSet(a);
+        union.addAll(b);
+        assertEquals(15 + 3, union.size());
+        assertTrue(union.containsAll(a));
+        assertTrue(union.containsAll(b));
+
+        BlockIdentifierSet difference = new BlockIdentifierSet(a);
+        difference.removeAll(b);
+        Set<BlockIdentifier> expected = new LinkedHashSet<>(blocks.subList(0, 5));
+        expected.add(foreign.get(0));
+        assertEquals(expected, difference);
+        assertEquals(expected.size(), difference.size());
+
+        BlockIdentifierSet intersection = new BlockIdentifierSet(a);
+        intersection.retainAll(b);
+        expected = new LinkedHashSet<>(blocks.subList(5, 10));
+        expected.add(foreign.get(1));
+        assertEquals(expected, intersection);
+        assertEquals(expected.size(), intersection.size());
+    }
+
+    /*
+     * Random operations, checked against a plain set.
+     */
+    @Test
+    void matchesReferenceSet() {
+        List<BlockIdentifier> all = new ArrayList<>(blocks);
+        all.addAll(foreign);
+        Random random = new Random(1234);
+        BlockIdentifierSet set = new BlockIdentifierSet();
+        Set<BlockIdentifier> reference = new LinkedHashSet<>();
+        for (int x = 0; x < 5000; ++x) {
+            BlockIdentifier b = all.get(random.nextInt(all.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    assertEquals(reference.add(b), set.add(b));
+                    break;
+                case 2:
+                    assertEquals(reference.remove(b), set.remove(b));
+                    break;
+                case 3: {
+                    BlockIdentifierSet other = randomSet(random, all);
+                    assertEquals(reference.addAll(other), set.addAll(other));
+                    break;
+                }
+                case 4: {
+                    BlockIdentifierSet other = randomSet(random, all);
+                    if (random.nextBoolean()) {
+                        assertEquals(reference.removeAll(other), set.removeAll(other));
+                    } else {
+                        assertEquals(reference.retainAll(other), set.retainAll(other));
+                    }
+                    break;
+                }
+                case 5: {
+                    Iterator<BlockIdentifier> it = set.iterator();
+                    while (it.hasNext()) {
+                        BlockIdentifier next = it.next();
+                        if (random.nextInt(4) == 0) {
+                            it.hasNext();
+                            it.remove();
+                            reference.remove(next);
+                        }
+                    }
+                    break;
+                }
+            }
+            assertEquals(reference.size(), set.size());
+            assertEquals(reference, set);
+        }
+    }
+
+    private static BlockIdentifierSet randomSet(Random random, List<BlockIdentifier> all) {
+        BlockIdentifierSet res = new BlockIdentifierSet();
+        for (int x = random.nextInt(40); x > 0; --x) {
+            res.add(all.get(random.nextInt(all.size())));
+        }
+        return res;
+    }
+}
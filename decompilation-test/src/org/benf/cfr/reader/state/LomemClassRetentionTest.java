@@ -0,0 +1,124 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.bytecode.analysis.types.MethodPrototype;
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.util.AnalysisType;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * In lomem mode, classes may be dropped from the class file cache and reloaded - but only if reloading
+ * gives back the same thing.
+ */
+class LomemClassRetentionTest {
+    // Analysed.
+    private static final String EXPLICIT_PACKAGE = "org/benf/cfr/reader/util/functors";
+    // Only on the class path.
+    private static final String LIBRARY_PACKAGE = "org/benf/cfr/reader/util/collections";
+    private static final String RENAMED = "renamedForTest";
+
+    @Test
+    void changedAndAnalysedClassesSurviveEviction(@TempDir Path tmp) throws Exception {
+        Path explicitJar = jarPackage(EXPLICIT_PACKAGE, tmp.resolve("explicit.jar"));
+        Path libraryJar = jarPackage(LIBRARY_PACKAGE, tmp.resolve("library.jar"));
+
+        Map<String, String> opts = new HashMap<>();
+        opts.put(OptionsImpl.LOMEM.getName(), "true");
+        opts.put(OptionsImpl.LOMEM_CLASS_CACHE_SIZE.getName(), "1");
+        opts.put(OptionsImpl.EXTRA_CLASS_PATH.getName(), libraryJar.toString());
+        OptionsImpl options = new OptionsImpl(opts);
+        ClassFileSourceImpl classFileSource = new ClassFileSourceImpl(options);
+        classFileSource.informAnalysisRelativePathDetail(null, null);
+        DCCommonState state = new DCCommonState(options, classFileSource);
+        state.explicitlyLoadJar(explicitJar.toString(), AnalysisType.JAR);
+
+        String explicitPath = EXPLICIT_PACKAGE + "/UnaryFunction.class";
+        String renamedPath = LIBRARY_PACKAGE + "/ListFactory.class";
+        String unchangedPath = LIBRARY_PACKAGE + "/SetFactory.class";
+
+        rename(state.getClassFile(explicitPath));
+        ClassFile renamed = state.getClassFile(renamedPath);
+        rename(renamed);
+        state.retainClassFile(renamed);
+        renamed = null;
+        WeakReference<ClassFile> unchanged = new WeakReference<>(state.getClassFile(unchangedPath));
+
+        // Push everything out of the (single entry) strong cache.
+        state.getClassFile(LIBRARY_PACKAGE + "/MapFactory.class");
+        state.getClassFile(LIBRARY_PACKAGE + "/StackFactory.class");
+        releaseSoftReferences();
+
+        // Make sure we really did evict - otherwise this proves nothing.
+        assertNull(unchanged.get(), "Unchanged library class wasn't evicted");
+        assertRenamed(state.getClassFile(explicitPath));
+        assertRenamed(state.getClassFile(renamedPath));
+    }
+
+    private static MethodPrototype firstPrototype(ClassFile classFile) {
+        return classFile.getMethods().get(0).getMethodPrototype();
+    }
+
+    private static void rename(ClassFile classFile) {
+        firstPrototype(classFile).setFixedName(RENAMED);
+    }
+
+    private static void assertRenamed(ClassFile classFile) {
+        MethodPrototype prototype = firstPrototype(classFile);
+        assertTrue(prototype.hasNameBeenFixed(), "Lost rename of " + classFile.getClassType());
+        assertEquals(RENAMED, prototype.getFixedName());
+    }
+
+    /*
+     * Soft references are guaranteed to be cleared before an OutOfMemoryError is thrown.
+     */
+    private static void releaseSoftReferences() {
+        List<long[]> hog = new ArrayList<>();
+        try {
+            while (true) {
+                hog.add(new long[1 << 24]);
+            }
+        } catch (OutOfMemoryError e) {
+            hog.clear();
+        }
+        System.gc();
+    }
+
+    private static Path jarPackage(String pkg, Path jar) throws IOException, URISyntaxException {
+        URL url = LomemClassRetentionTest.class.getClassLoader().getResource(pkg);
+        assertTrue(url != null && "file".equals(url.getProtocol()), "Can't find " + pkg);
+        Path dir = Paths.get(url.toURI());
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out);
+             Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".class")) continue;
+                jarOut.putNextEntry(new JarEntry(pkg + "/" + name));
+                jarOut.write(Files.readAllBytes(file));
+                jarOut.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
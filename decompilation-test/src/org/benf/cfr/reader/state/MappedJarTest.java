@@ -0,0 +1,129 @@
+package org.benf.cfr.reader.state;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedJarTest {
+    private static final byte[] STORED_CONTENT = "stored content".getBytes();
+    private static final byte[] DEFLATED_CONTENT = new byte[4096];
+
+    static {
+        for (int x = 0; x < DEFLATED_CONTENT.length; ++x) {
+            DEFLATED_CONTENT[x] = (byte) (x % 7);
+        }
+    }
+
+    @Test
+    void readsWellFormedJar(@TempDir Path tmp) throws IOException {
+        MappedJar jar = new MappedJar(write(tmp, jarBytes()).toString());
+        assertArrayEquals(STORED_CONTENT, jar.getContent("a/Stored.class"));
+        assertArrayEquals(DEFLATED_CONTENT, jar.getContent("a/Deflated.class"));
+        assertNull(jar.getContent("a/Missing.class"));
+    }
+
+    @Test
+    void truncatedJarIsRefused(@TempDir Path tmp) throws IOException {
+        byte[] bytes = jarBytes();
+        for (int length : new int[]{0, 10, bytes.length / 2, bytes.length - 1}) {
+            Path path = write(tmp, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> new MappedJar(path.toString()), "length " + length);
+        }
+    }
+
+    @Test
+    void centralDirectoryOutOfRangeIsRefused(@TempDir Path tmp) throws IOException {
+        byte[] bytes = jarBytes();
+        int eocd = findEndOfCentralDirectory(bytes);
+        // Central directory offset.
+        putInt(bytes, eocd + 16, bytes.length - 10);
+        Path path = write(tmp, bytes);
+        assertThrows(IOException.class, () -> new MappedJar(path.toString()));
+    }
+
+    @Test
+    void entryNameOutOfRangeIsRefused(@TempDir Path tmp) throws IOException {
+        byte[] bytes = jarBytes();
+        int cen = getInt(bytes, findEndOfCentralDirectory(bytes) + 16);
+        // Name length of the first entry.
+        bytes[cen + 28] = (byte) 0xff;
+        bytes[cen + 29] = (byte) 0xff;
+        Path path = write(tmp, bytes);
+        assertThrows(IOException.class, () -> new MappedJar(path.toString()));
+    }
+
+    @Test
+    void localHeaderOutOfRangeIsRefused(@TempDir Path tmp) throws IOException {
+        byte[] bytes = jarBytes();
+        int cen = getInt(bytes, findEndOfCentralDirectory(bytes) + 16);
+        // Local header offset of the first entry.
+        putInt(bytes, cen + 42, bytes.length - 4);
+        Path path = write(tmp, bytes);
+        assertThrows(IOException.class, () -> new MappedJar(path.toString()));
+    }
+
+    @Test
+    void entryDataOutOfRangeFailsRead(@TempDir Path tmp) throws IOException {
+        byte[] bytes = jarBytes();
+        // Extra field length of the first local header - pushes its data past the end of the jar.
+        bytes[28] = (byte) 0xff;
+        bytes[29] = (byte) 0xff;
+        MappedJar jar = new MappedJar(write(tmp, bytes).toString());
+        assertThrows(IOException.class, () -> jar.getContent("a/Stored.class"));
+    }
+
+    private static byte[] jarBytes() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(baos)) {
+            ZipEntry stored = new ZipEntry("a/Stored.class");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(STORED_CONTENT.length);
+            stored.setCompressedSize(STORED_CONTENT.length);
+            CRC32 crc = new CRC32();
+            crc.update(STORED_CONTENT);
+            stored.setCrc(crc.getValue());
+            zip.putNextEntry(stored);
+            zip.write(STORED_CONTENT);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("a/Deflated.class"));
+            zip.write(DEFLATED_CONTENT);
+            zip.closeEntry();
+        }
+        return baos.toByteArray();
+    }
+
+    private static int findEndOfCentralDirectory(byte[] bytes) {
+        for (int pos = bytes.length - 22; pos >= 0; --pos) {
+            if (getInt(bytes, pos) == 0x06054b50) return pos;
+        }
+        throw new IllegalStateException("No end of central directory");
+    }
+
+    private static int getInt(byte[] bytes, int pos) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(pos);
+    }
+
+    private static void putInt(byte[] bytes, int pos, int value) {
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(pos, value);
+    }
+
+    private static Path write(Path dir, byte[] bytes) throws IOException {
+        Path path = Files.createTempFile(dir, "test", ".jar");
+        Files.write(path, bytes);
+        return path;
+    }
+}
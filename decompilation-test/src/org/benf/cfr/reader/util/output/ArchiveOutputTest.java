@@ -0,0 +1,87 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArchiveOutputTest {
+    private static final JavaTypeInstance TYPE = JavaRefTypeInstance.createTypeConstant("a.B");
+
+    private static ArchiveOutput create(Path jar, String clobber) {
+        Map<String, String> options = new HashMap<>();
+        options.put(OptionsImpl.OUTPUT_JAR.getName(), jar.toString());
+        if (clobber != null) options.put(OptionsImpl.CLOBBER_FILES.getName(), clobber);
+        return ArchiveOutput.create(new OptionsImpl(options));
+    }
+
+    @Test
+    void existingArchiveIsOnlyReplacedWithClobber(@TempDir Path tmp) throws IOException {
+        Path jar = tmp.resolve("out.jar");
+        byte[] existing = "not mine".getBytes(StandardCharsets.UTF_8);
+        Files.write(jar, existing);
+
+        assertThrows(Dumper.CannotCreate.class, () -> create(jar, null));
+        assertThrows(Dumper.CannotCreate.class, () -> create(jar, "false"));
+        assertArrayEquals(existing, Files.readAllBytes(jar));
+
+        ArchiveOutput archive = create(jar, "true");
+        archive.addEntry("a/B.java", "class B {}");
+        archive.close();
+        assertEquals(Arrays.asList("a/B.java"), entryNames(jar));
+    }
+
+    @Test
+    void duplicateSideEntryIsReported(@TempDir Path tmp) throws IOException {
+        Path jar = tmp.resolve("out.jar");
+        ArchiveOutput archive = create(jar, null);
+        final List<String> errors = new ArrayList<>();
+        SummaryDumper summaryDumper = new NopSummaryDumper() {
+            @Override
+            public void notifyError(JavaTypeInstance controllingType, Method method, String error) {
+                errors.add(controllingType.getRawName() + ": " + error);
+            }
+        };
+
+        for (String content : Arrays.asList("first", "second")) {
+            try (OutputStream out = archive.getEntryStream("a/B.java.lineNumberTable", TYPE, summaryDumper)) {
+                out.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        archive.close();
+
+        assertEquals(Collections.singletonList("a.B: Not written - output archive already contains a/B.java.lineNumberTable"), errors);
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            ZipEntry entry = zip.getEntry("a/B.java.lineNumberTable");
+            assertEquals("first", new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<String> entryNames(Path jar) throws IOException {
+        List<String> res = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            zip.stream().forEach(e -> res.add(e.getName()));
+        }
+        return res;
+    }
+}
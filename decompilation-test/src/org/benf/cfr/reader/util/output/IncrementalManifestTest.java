@@ -0,0 +1,147 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalManifestTest {
+    private static final JavaTypeInstance KEPT = JavaRefTypeInstance.createTypeConstant("a.Kept");
+    private static final JavaTypeInstance GONE = JavaRefTypeInstance.createTypeConstant("a.Gone");
+
+    private final List<String> keptOutputs = new ArrayList<>();
+
+    private IncrementalManifest newManifest(Path outputDir) {
+        return new IncrementalManifest(outputDir.toString(), new OptionsImpl(new HashMap<>()), keptOutputs::add);
+    }
+
+    /*
+     * As the driver does - the dumper factory notes the file, it's written, then the class is recorded.
+     */
+    private static Path write(IncrementalManifest manifest, Path outputDir, JavaTypeInstance type, String fingerprint) throws IOException {
+        Path file = outputDir.resolve(type.getRawName().replace('.', File.separatorChar) + ".java");
+        manifest.noteOutputFile(0, type, file.toString());
+        Files.createDirectories(file.getParent());
+        Files.write(file, type.getRawName().getBytes(StandardCharsets.UTF_8));
+        manifest.record(0, type, type, fingerprint);
+        return file;
+    }
+
+    @Test
+    void unchangedOutputsAreKept(@TempDir Path outputDir) throws IOException {
+        IncrementalManifest manifest = newManifest(outputDir);
+        manifest.notePresent(0, KEPT);
+        Path kept = write(manifest, outputDir, KEPT, "f1");
+        manifest.finish(new NopSummaryDumper());
+
+        manifest = newManifest(outputDir);
+        assertFalse(manifest.isUnchanged(0, KEPT, "f2"));
+        assertTrue(manifest.isUnchanged(0, KEPT, "f1"));
+        assertEquals(Arrays.asList(kept.toString()), keptOutputs);
+        assertTrue(manifest.owns(kept.toString()));
+        assertTrue(manifest.owns(kept + ".lineNumberTable"));
+        assertFalse(manifest.owns(outputDir.resolve("a/Other.java").toString()));
+
+        // An output which has gone has to be regenerated, whatever the fingerprint.
+        Files.delete(kept);
+        assertFalse(manifest.isUnchanged(0, KEPT, "f1"));
+    }
+
+    @Test
+    void staleOutputsAreDeleted(@TempDir Path outputDir) throws IOException {
+        IncrementalManifest manifest = newManifest(outputDir);
+        manifest.notePresent(0, KEPT);
+        manifest.notePresent(0, GONE);
+        Path kept = write(manifest, outputDir, KEPT, "f1");
+        Path gone = write(manifest, outputDir, GONE, "f1");
+        manifest.finish(new NopSummaryDumper());
+
+        // GONE has been removed from the jar.
+        manifest = newManifest(outputDir);
+        manifest.notePresent(0, KEPT);
+        assertTrue(manifest.isUnchanged(0, KEPT, "f1"));
+        manifest.finish(new NopSummaryDumper());
+        assertTrue(Files.exists(kept));
+        assertFalse(Files.exists(gone));
+
+        manifest = newManifest(outputDir);
+        assertTrue(manifest.isUnchanged(0, KEPT, "f1"));
+        assertFalse(manifest.owns(gone.toString()));
+    }
+
+    @Test
+    void forgottenOutputsAreRegenerated(@TempDir Path outputDir) throws IOException {
+        IncrementalManifest manifest = newManifest(outputDir);
+        manifest.notePresent(0, KEPT);
+        manifest.notePresent(0, GONE);
+        write(manifest, outputDir, KEPT, "f1");
+        Path failed = write(manifest, outputDir, GONE, "f1");
+        // Eg the write behind of this failed.
+        manifest.forgetOutputFile(failed.toString());
+        manifest.finish(new NopSummaryDumper());
+
+        manifest = newManifest(outputDir);
+        assertTrue(manifest.isUnchanged(0, KEPT, "f1"));
+        assertFalse(manifest.isUnchanged(0, GONE, "f1"));
+    }
+
+    @Test
+    void outputsOutsideOutputDirAreNeverRecorded(@TempDir Path tmp) throws IOException {
+        Path outputDir = Files.createDirectory(tmp.resolve("out"));
+        IncrementalManifest manifest = newManifest(outputDir);
+        manifest.notePresent(0, KEPT);
+        Path outside = tmp.resolve("Kept.java");
+        manifest.noteOutputFile(0, KEPT, outputDir.resolve("..").resolve("Kept.java").toString());
+        Files.write(outside, new byte[0]);
+        manifest.record(0, KEPT, KEPT, "f1");
+        manifest.finish(new NopSummaryDumper());
+
+        manifest = newManifest(outputDir);
+        assertFalse(manifest.isUnchanged(0, KEPT, "f1"));
+        assertFalse(manifest.owns(outside.toString()));
+    }
+
+    @Test
+    void malformedEntriesAreIgnored(@TempDir Path tmp) throws IOException {
+        Path outputDir = Files.createDirectory(tmp.resolve("out"));
+        Path victim = Files.write(tmp.resolve("victim.txt"), new byte[0]);
+        Path nested = Files.createDirectories(tmp.resolve("elsewhere")).resolve("victim.txt");
+        Files.write(nested, new byte[0]);
+        Path inside = Files.write(outputDir.resolve("Stale.java"), new byte[0]);
+
+        String sep = File.separator;
+        Files.write(outputDir.resolve(".cfr-incremental"), Arrays.asList(
+                "CFR incremental manifest 1",
+                "0:a.Up\tf1\t.." + sep + "victim.txt",
+                "0:a.Absolute\tf1\t" + victim.toAbsolutePath(),
+                "0:a.Through\tf1\ta" + sep + ".." + sep + ".." + sep + "elsewhere" + sep + "victim.txt",
+                "0:a.Manifest\tf1\t.cfr-incremental",
+                "0:a.Stale\tf1\tStale.java"), StandardCharsets.UTF_8);
+
+        // None of these are present any more - but only the one really inside the output dir may be deleted.
+        IncrementalManifest manifest = newManifest(outputDir);
+        assertFalse(manifest.owns(victim.toString()));
+        manifest.finish(new NopSummaryDumper());
+
+        assertTrue(Files.exists(victim));
+        assertTrue(Files.exists(nested));
+        assertFalse(Files.exists(inside));
+        assertEquals(Arrays.asList("CFR incremental manifest 1"),
+                Files.readAllLines(outputDir.resolve(".cfr-incremental"), StandardCharsets.UTF_8));
+    }
+}
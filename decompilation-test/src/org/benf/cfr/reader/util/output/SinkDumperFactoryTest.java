@@ -0,0 +1,98 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.jupiter.api.Test;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SinkDumperFactoryTest {
+    // One of CFR's own, which decompiles to more than a chunk.
+    private static final String PACKAGE = "org.benf.cfr.reader.bytecode.analysis.opgraph";
+    private static final String CLASS = "Op02WithProcessedDataAndRefs";
+
+    @Test
+    void chunksConcatenateToDecompiled() throws URISyntaxException {
+        String path = classFile();
+
+        List<SinkReturns.Decompiled> decompiled = new ArrayList<>();
+        decompile(path, OutputSinkFactory.SinkClass.DECOMPILED, decompiled);
+        assertEquals(1, decompiled.size());
+        String java = decompiled.get(0).getJava();
+        assertTrue(java.length() > SinkDumperFactory.CHUNK_SIZE, "Too small to test chunking");
+
+        List<SinkReturns.DecompiledChunk> chunks = new ArrayList<>();
+        decompile(path, OutputSinkFactory.SinkClass.DECOMPILED_CHUNKED, chunks);
+
+        // Nothing in this class's text is a token spanning lines, so the longest line bounds any single token.
+        int longestToken = 0;
+        for (String line : java.split("\n")) {
+            longestToken = Math.max(longestToken, line.length() + 1);
+        }
+
+        StringBuilder joined = new StringBuilder();
+        for (int x = 0; x < chunks.size(); ++x) {
+            SinkReturns.DecompiledChunk chunk = chunks.get(x);
+            boolean last = x == chunks.size() - 1;
+            assertEquals(last, chunk.isEnd(), "chunk " + x);
+            CharSequence content = chunk.getJava();
+            assertTrue(content.length() <= SinkDumperFactory.CHUNK_SIZE + longestToken, "chunk " + x + " is " + content.length());
+            if (last) {
+                assertEquals(0, content.length());
+                assertEquals(PACKAGE, chunk.getPackageName());
+                assertEquals(CLASS, chunk.getClassName());
+                assertEquals(0, chunk.getRuntimeFrom());
+            }
+            joined.append(content);
+        }
+        assertTrue(chunks.size() >= 3, "Expected several chunks, got " + chunks.size());
+        assertEquals(java, joined.toString());
+    }
+
+    private static String classFile() throws URISyntaxException {
+        String resource = PACKAGE.replace('.', '/') + "/" + CLASS + ".class";
+        URL url = SinkDumperFactoryTest.class.getClassLoader().getResource(resource);
+        assertTrue(url != null && "file".equals(url.getProtocol()), "Can't find " + resource);
+        return Paths.get(url.toURI()).toString();
+    }
+
+    private static <T> void decompile(String path, final OutputSinkFactory.SinkClass javaSinkClass, final List<T> into) {
+        OutputSinkFactory sinkFactory = new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+                if (sinkType == SinkType.JAVA) return Collections.singletonList(javaSinkClass);
+                return Collections.singletonList(SinkClass.STRING);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <S> Sink<S> getSink(SinkType sinkType, SinkClass sinkClass) {
+                if (sinkType != SinkType.JAVA) return sinkable -> {};
+                assertEquals(javaSinkClass, sinkClass);
+                return sinkable -> into.add((T) sinkable);
+            }
+        };
+        Map<String, String> options = new HashMap<>();
+        options.put(OptionsImpl.SHOW_CFR_VERSION.getName(), "false");
+
+        CfrDriver driver = new CfrDriver.Builder()
+            .withOptions(options)
+            .withOutputSink(sinkFactory)
+            .build();
+        driver.analyse(Arrays.asList(path));
+    }
+}
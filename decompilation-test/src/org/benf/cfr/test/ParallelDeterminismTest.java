@@ -0,0 +1,94 @@
+package org.benf.cfr.test;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Analysing with {@code --threads} must give exactly the output of a sequential run.
+ */
+class ParallelDeterminismTest {
+    // A package with plenty of top level classes, inner classes and cross references - CFR's own.
+    private static final String PACKAGE = "org/benf/cfr/reader/bytecode/analysis/parse/utils";
+
+    @Test
+    void threadedOutputMatchesSequential(@TempDir Path tmp) throws Exception {
+        Path jar = jarPackage(tmp.resolve("input.jar"));
+
+        for (String lomem : Arrays.asList("false", "true")) {
+            String sequential = decompile(jar, lomem, 1);
+            assertTrue(sequential.contains("class BlockIdentifier"), "Nothing decompiled");
+            assertEquals(sequential, decompile(jar, lomem, 4), "lomem " + lomem);
+        }
+    }
+
+    private static String decompile(Path jar, String lomem, int threads) {
+        StringBuilder sb = new StringBuilder();
+        OutputSinkFactory sinkFactory = new OutputSinkFactory() {
+            @Override
+            public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+                return Arrays.asList(SinkClass.STRING);
+            }
+
+            @Override
+            public <T> Sink<T> getSink(final SinkType sinkType, final SinkClass sinkClass) {
+                return sinkable -> {
+                    if (sinkType == SinkType.JAVA || sinkType == SinkType.EXCEPTION) {
+                        sb.append(sinkable).append('\n');
+                    }
+                };
+            }
+        };
+        Map<String, String> options = new HashMap<>();
+        options.put(OptionsImpl.SHOW_CFR_VERSION.getName(), "false");
+        options.put(OptionsImpl.DUMP_EXCEPTION_STACK_TRACE.getName(), "false");
+        options.put(OptionsImpl.LOMEM.getName(), lomem);
+        options.put(OptionsImpl.THREADS.getName(), Integer.toString(threads));
+
+        CfrDriver driver = new CfrDriver.Builder()
+            .withOptions(options)
+            .withOutputSink(sinkFactory)
+            .build();
+        driver.analyse(Arrays.asList(jar.toAbsolutePath().toString()));
+        return sb.toString();
+    }
+
+    private static Path jarPackage(Path jar) throws IOException, URISyntaxException {
+        URL url = ParallelDeterminismTest.class.getClassLoader().getResource(PACKAGE);
+        assertTrue(url != null && "file".equals(url.getProtocol()), "Can't find " + PACKAGE);
+        Path dir = Paths.get(url.toURI());
+        try (OutputStream out = Files.newOutputStream(jar);
+             JarOutputStream jarOut = new JarOutputStream(out);
+             Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".class")) continue;
+                jarOut.putNextEntry(new JarEntry(PACKAGE + "/" + name));
+                jarOut.write(Files.readAllBytes(file));
+                jarOut.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -8,10 +8,12 @@ import org.benf.cfr.reader.state.ClassFileSourceChained;
 import org.benf.cfr.reader.state.ClassFileSourceImpl;
 import org.benf.cfr.reader.state.ClassFileSourceWrapper;
 import org.benf.cfr.reader.state.DCCommonState;
+import org.benf.cfr.reader.state.SharedLibraryClasses;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.output.ArchiveOutput;
 import org.benf.cfr.reader.util.output.DumperFactory;
 import org.benf.cfr.reader.util.output.InternalDumperFactoryImpl;
 import org.benf.cfr.reader.util.output.SinkDumperFactory;
@@ -25,20 +27,35 @@ public class CfrDriverImpl implements CfrDriver {
     private final Options options;
     private final ClassFileSource2 classFileSource;
     private final OutputSinkFactory outputSinkFactory;
+    /*
+     * The source we created ourselves (if any) - we're responsible for releasing jars it holds open.
+     */
+    private final ClassFileSourceImpl ownedSource;
+    /*
+     * Only available if we're entirely responsible for loading classes - a user supplied source could
+     * provide anything, so we can't tell which classes are library classes.
+     */
+    private final SharedLibraryClasses sharedLibraryClasses;
 
     public CfrDriverImpl(ClassFileSource source, OutputSinkFactory outputSinkFactory, Options options, boolean fallbackToDefaultSource) {
         if (options == null) {
             options = new OptionsImpl(new HashMap<>());
         }
         ClassFileSource2 tmpSource;
+        ClassFileSourceImpl tmpOwned = null;
         if (source == null) {
-            tmpSource = new ClassFileSourceImpl(options);
+            tmpOwned = new ClassFileSourceImpl(options, true);
+            tmpSource = tmpOwned;
         } else {
             tmpSource = source instanceof ClassFileSource2 ? (ClassFileSource2)source : new ClassFileSourceWrapper(source);
             if (fallbackToDefaultSource) {
-                tmpSource = new ClassFileSourceChained(Arrays.asList(tmpSource, new ClassFileSourceImpl(options)));
+                tmpOwned = new ClassFileSourceImpl(options, true);
+                tmpSource = new ClassFileSourceChained(Arrays.asList(tmpSource, tmpOwned));
             }
         }
+        this.ownedSource = tmpOwned;
+        this.sharedLibraryClasses = tmpOwned != null && tmpOwned == tmpSource && options.getOption(OptionsImpl.SHARE_LIBRARY_CLASSES) ?
+                new SharedLibraryClasses(options, tmpOwned) : null;
         this.outputSinkFactory = outputSinkFactory;
         this.options = options;
         this.classFileSource = tmpSource;
@@ -57,26 +74,38 @@ public class CfrDriverImpl implements CfrDriver {
         // Can't sort a 1.6 singleton list.
         toAnalyse = ListFactory.newList(toAnalyse);
         Collections.sort(toAnalyse);
-        for (String path : toAnalyse) {
-            // TODO : We shouldn't have to discard state here.  But we do, because
-            // it causes test fails.  (used class name table retains useful symbols).
-            classFileSource.informAnalysisRelativePathDetail(null, null);
-            // Note - both of these need to be reset, as they have caches.
-            DCCommonState dcCommonState = new DCCommonState(options, classFileSource);
-            DumperFactory dumperFactory = outputSinkFactory != null ?
-                    new SinkDumperFactory(outputSinkFactory, options) :
-                    new InternalDumperFactoryImpl(options);
-
-            AnalysisType type = options.getOption(OptionsImpl.ANALYSE_AS);
-            if (type == null || type == AnalysisType.DETECT) {
-                type = dcCommonState.detectClsJar(path);
+        // Everything analysed goes into the one archive, if we're writing one.
+        ArchiveOutput archive = outputSinkFactory == null ? ArchiveOutput.create(options) : null;
+        try {
+            for (String path : toAnalyse) {
+                analyse(path, skipInnerClass, archive);
             }
+        } finally {
+            if (archive != null) archive.close();
+            if (ownedSource != null) ownedSource.releaseOpenFiles();
+        }
+    }
 
-            if (type == AnalysisType.JAR || type == AnalysisType.WAR) {
-                Driver.doJar(dcCommonState, path, type, dumperFactory);
-            } else if (type == AnalysisType.CLASS) {
-                Driver.doClass(dcCommonState, path, skipInnerClass, dumperFactory);
-            }
+    private void analyse(String path, boolean skipInnerClass, ArchiveOutput archive) {
+        // TODO : We shouldn't have to discard state here.  But we do, because
+        // it causes test fails.  (used class name table retains useful symbols).
+        classFileSource.informAnalysisRelativePathDetail(null, null);
+        // Note - both of these need to be reset, as they have caches.
+        // Library classes, if shared, are kept - they don't carry any of this state.
+        DCCommonState dcCommonState = new DCCommonState(options, classFileSource, sharedLibraryClasses);
+        DumperFactory dumperFactory = outputSinkFactory != null ?
+                new SinkDumperFactory(outputSinkFactory, options) :
+                new InternalDumperFactoryImpl(options, archive);
+
+        AnalysisType type = options.getOption(OptionsImpl.ANALYSE_AS);
+        if (type == null || type == AnalysisType.DETECT) {
+            type = dcCommonState.detectClsJar(path);
+        }
+
+        if (type == AnalysisType.JAR || type == AnalysisType.WAR) {
+            Driver.doJar(dcCommonState, path, type, dumperFactory);
+        } else if (type == AnalysisType.CLASS) {
+            Driver.doClass(dcCommonState, path, skipInnerClass, dumperFactory);
         }
     }
 }
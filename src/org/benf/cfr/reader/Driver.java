@@ -1,5 +1,7 @@
 package org.benf.cfr.reader;
 
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.PassMetrics;
 import org.benf.cfr.reader.bytecode.analysis.types.InnerClassInfo;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
 import org.benf.cfr.reader.entities.ClassFile;
@@ -13,6 +15,7 @@ import org.benf.cfr.reader.state.TypeUsageInformation;
 import org.benf.cfr.reader.util.AnalysisType;
 import org.benf.cfr.reader.util.CannotLoadClassException;
 import org.benf.cfr.reader.util.CfrVersionInfo;
+import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.MiscConstants;
 import org.benf.cfr.reader.util.MiscUtils;
 import org.benf.cfr.reader.util.collections.Functional;
@@ -26,15 +29,30 @@ import org.benf.cfr.reader.util.output.Dumper;
 import org.benf.cfr.reader.util.output.DumperFactory;
 import org.benf.cfr.reader.util.output.ExceptionDumper;
 import org.benf.cfr.reader.util.output.IllegalIdentifierDump;
+import org.benf.cfr.reader.util.output.IncrementalManifest;
 import org.benf.cfr.reader.util.output.NopSummaryDumper;
 import org.benf.cfr.reader.util.output.ProgressDumper;
 import org.benf.cfr.reader.util.output.SummaryDumper;
 import org.benf.cfr.reader.util.output.ToStringDumper;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 class Driver {
 
@@ -108,9 +126,19 @@ class Driver {
             ed.noteException(path, null, e);
         } finally {
             if (d != null) d.close();
+            dumperFactory.finishOutput();
+            publishPassMetrics(dcCommonState, path, dumperFactory);
         }
     }
 
+    private static void publishPassMetrics(DCCommonState dcCommonState, String path, DumperFactory dumperFactory) {
+        PassMetrics passMetrics = dcCommonState.getPassMetrics();
+        if (passMetrics == null) return;
+        List<SinkReturns.PassMetric> metrics = passMetrics.drain(path);
+        if (metrics.isEmpty()) return;
+        dumperFactory.getMetricsDumper().passMetrics(metrics);
+    }
+
     static void doJar(DCCommonState dcCommonState, String path, AnalysisType analysisType, DumperFactory dumperFactory) {
         Options options = dcCommonState.getOptions();
         IllegalIdentifierDump illegalIdentifierDump = IllegalIdentifierDump.Factory.get(options);
@@ -130,6 +158,15 @@ class Driver {
             List<Integer> versionsSeen = ListFactory.newList();
             
             addMissingOuters(clstypes);
+
+            IncrementalManifest incrementalManifest = dumperFactory.getIncrementalManifest();
+            if (incrementalManifest != null) {
+                for (Map.Entry<Integer, List<JavaTypeInstance>> entry : clstypes.entrySet()) {
+                    for (JavaTypeInstance type : entry.getValue()) {
+                        incrementalManifest.notePresent(entry.getKey(), type);
+                    }
+                }
+            }
             
             for (Map.Entry<Integer, List<JavaTypeInstance>> entry : clstypes.entrySet()) {
                 int forVersion = entry.getKey();
@@ -138,13 +175,21 @@ class Driver {
                 List<JavaTypeInstance> types = entry.getValue();
                 doJarVersionTypes(forVersion, localVersionsSeen, dcCommonState, dumperFactory, illegalIdentifierDump, summaryDumper, progressDumper, types);
             }
+            if (incrementalManifest != null) {
+                // Writes behind have to be done before we save - any which failed are dropped from the manifest.
+                dumperFactory.finishOutput();
+                incrementalManifest.finish(summaryDumper);
+            }
         } catch (Exception e) {
             dumperFactory.getExceptionDumper().noteException(path, "Exception analysing jar", e);
             if (summaryDumper != null) summaryDumper.notify("Exception analysing jar " + e);
         } finally {
+            // Anything written behind has to be done (and any failures reported) before the summary is closed.
+            dumperFactory.finishOutput();
             if (summaryDumper != null) {
                 summaryDumper.close();
             }
+            publishPassMetrics(dcCommonState, path, dumperFactory);
         }
     }
 
@@ -231,6 +276,19 @@ class Driver {
                 options.getOption(OptionsImpl.RENAME_ENUM_MEMBERS)) {
             MemberNameResolver.resolveNames(dcCommonState, types);
         }
+        IncrementalManifest incrementalManifest = dumperFactory.getIncrementalManifest();
+        NavigableSet<String> typeNames = null;
+        if (incrementalManifest != null) {
+            typeNames = new TreeSet<String>();
+            for (JavaTypeInstance type : types) {
+                typeNames.add(type.getRawName());
+            }
+        }
+        int threads = options.getOption(OptionsImpl.THREADS);
+        if (threads > 1) {
+            doJarTypesParallel(threads, forVersion, dcCommonState, dumperFactory, illegalIdentifierDump, summaryDumper, progressDumper, types, incrementalManifest, typeNames);
+            return;
+        }
         /*
          * If we're working on a case insensitive file system (OH COME ON!) then make sure that
          * we don't have any collisions.
@@ -245,28 +303,25 @@ class Driver {
                     d = null;
                     continue;
                 }
+                String fingerprint = null;
+                if (incrementalManifest != null) {
+                    fingerprint = getFingerprint(dcCommonState, type, c, typeNames, incrementalManifest);
+                    if (incrementalManifest.isUnchanged(forVersion, type, fingerprint)) {
+                        d = null;
+                        continue;
+                    }
+                }
+                JavaTypeInstance manifestType = type;
                 if (!silent) {
                     type = dcCommonState.getObfuscationMapping().get(type);
                     progressDumper.analysingType(type);
                 }
-                if (options.getOption(OptionsImpl.DECOMPILE_INNER_CLASSES)) {
-                    c.loadInnerClasses(dcCommonState);
-                }
+                TypeUsageCollectingDumper collectingDumper = analyseType(dcCommonState, c);
 
-                TypeUsageCollectingDumper collectingDumper = new TypeUsageCollectingDumper(options, c);
-                c.analyseTop(dcCommonState, collectingDumper);
-
-                JavaTypeInstance classType = c.getClassType();
-                classType = dcCommonState.getObfuscationMapping().get(classType);
-                TypeUsageInformation typeUsageInformation = collectingDumper.getRealTypeUsageInformation();
-                d = dumperFactory.getNewTopLevelDumper(classType, summaryDumper, typeUsageInformation, illegalIdentifierDump);
-                d = dcCommonState.getObfuscationMapping().wrap(d);
-
-                c.dump(d);
-                d.newln();
-                d.newln();
-                if (lomem) {
-                    c.releaseCode();
+                d = getTopLevelDumper(dcCommonState, c, collectingDumper, dumperFactory, illegalIdentifierDump, summaryDumper);
+                dumpType(c, d, lomem);
+                if (fingerprint != null) {
+                    incrementalManifest.record(forVersion, manifestType, getOutputType(dcCommonState, c), fingerprint);
                 }
             } catch (Dumper.CannotCreate e) {
                 throw e;
@@ -278,4 +333,199 @@ class Driver {
 
         }
     }
+
+    /*
+     * Fingerprint of everything we decompile type from - its own content, and that of anything named as if it's
+     * one of its inner classes.  Null if we couldn't read them, in which case type won't be skipped.
+     */
+    private static String getFingerprint(DCCommonState dcCommonState, JavaTypeInstance type, ClassFile c, NavigableSet<String> typeNames, IncrementalManifest incrementalManifest) {
+        String usePath = c.getUsePath();
+        String rawName = type.getRawName();
+        List<byte[]> contents = ListFactory.newList();
+        try {
+            contents.add(dcCommonState.getClassFileContent(usePath));
+            if (usePath.endsWith(".class")) {
+                String basePath = usePath.substring(0, usePath.length() - 6);
+                String innerPrefix = rawName + MiscConstants.INNER_CLASS_SEP_STR;
+                for (String name : typeNames.tailSet(innerPrefix, true)) {
+                    if (!name.startsWith(innerPrefix)) break;
+                    contents.add(dcCommonState.getClassFileContent(basePath + name.substring(rawName.length()) + ".class"));
+                }
+            }
+        } catch (CannotLoadClassException e) {
+            return null;
+        }
+        return incrementalManifest.getFingerprint(contents);
+    }
+
+    private static TypeUsageCollectingDumper analyseType(DCCommonState dcCommonState, ClassFile c) {
+        Options options = dcCommonState.getOptions();
+        if (options.getOption(OptionsImpl.DECOMPILE_INNER_CLASSES)) {
+            c.loadInnerClasses(dcCommonState);
+        }
+
+        TypeUsageCollectingDumper collectingDumper = new TypeUsageCollectingDumper(options, c);
+        c.analyseTop(dcCommonState, collectingDumper);
+        return collectingDumper;
+    }
+
+    /*
+     * The type c is written out as - which the dumper factory sees.
+     */
+    private static JavaTypeInstance getOutputType(DCCommonState dcCommonState, ClassFile c) {
+        return dcCommonState.getObfuscationMapping().get(c.getClassType());
+    }
+
+    private static Dumper getTopLevelDumper(DCCommonState dcCommonState, ClassFile c, TypeUsageCollectingDumper collectingDumper, DumperFactory dumperFactory, IllegalIdentifierDump illegalIdentifierDump, SummaryDumper summaryDumper) {
+        JavaTypeInstance classType = getOutputType(dcCommonState, c);
+        TypeUsageInformation typeUsageInformation = collectingDumper.getRealTypeUsageInformation();
+        Dumper d = dumperFactory.getNewTopLevelDumper(classType, summaryDumper, typeUsageInformation, illegalIdentifierDump);
+        return dcCommonState.getObfuscationMapping().wrap(d);
+    }
+
+    private static void dumpType(ClassFile c, Dumper d, boolean lomem) {
+        c.dump(d);
+        d.newln();
+        d.newln();
+        if (lomem) {
+            c.releaseCode();
+        }
+    }
+
+    /*
+     * Analysis of top level types is spread over a pool of worker threads, however the results are
+     * dumped on this thread, in the same order as above, so output order (and the summary) are unaffected
+     * by the thread count.  We keep a bounded window of types in flight, so that analysed classes which
+     * are waiting to be dumped don't accumulate.
+     *
+     * As with the sequential case, failure to load / analyse a type is not reported.
+     *
+     * Workers may read any class while they analyse, so with lomem, code is only released in batches, once no
+     * worker is mid analysis.
+     */
+    private static void doJarTypesParallel(int threads, final int forVersion, final DCCommonState dcCommonState, DumperFactory dumperFactory, IllegalIdentifierDump illegalIdentifierDump, SummaryDumper summaryDumper, ProgressDumper progressDumper, List<JavaTypeInstance> types,
+                                           final IncrementalManifest incrementalManifest, final NavigableSet<String> typeNames) {
+        Options options = dcCommonState.getOptions();
+        final boolean lomem = options.getOption(OptionsImpl.LOMEM);
+        final boolean silent = options.getOption(OptionsImpl.SILENT);
+        final int window = threads * PARALLEL_WINDOW_PER_THREAD;
+        final ReadWriteLock codeLock = new ReentrantReadWriteLock();
+        List<ClassFile> toRelease = ListFactory.newList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        try {
+            Iterator<JavaTypeInstance> pending = types.iterator();
+            Deque<Future<AnalysedType>> inFlight = new ArrayDeque<Future<AnalysedType>>();
+            while (true) {
+                while (inFlight.size() < window && pending.hasNext()) {
+                    final JavaTypeInstance type = pending.next();
+                    inFlight.add(executor.submit(new Callable<AnalysedType>() {
+                        @Override
+                        public AnalysedType call() {
+                            codeLock.readLock().lock();
+                            try {
+                                ClassFile c = dcCommonState.getClassFile(type);
+                                if (c.isInnerClass()) return null;
+                                String fingerprint = null;
+                                if (incrementalManifest != null) {
+                                    fingerprint = getFingerprint(dcCommonState, type, c, typeNames, incrementalManifest);
+                                    if (incrementalManifest.isUnchanged(forVersion, type, fingerprint)) return null;
+                                }
+                                return new AnalysedType(type, c, analyseType(dcCommonState, c), fingerprint);
+                            } finally {
+                                codeLock.readLock().unlock();
+                            }
+                        }
+                    }));
+                }
+                Future<AnalysedType> next = inFlight.poll();
+                if (next == null) break;
+                AnalysedType analysed = getAnalysedType(next);
+                if (analysed == null) continue;
+
+                JavaTypeInstance type = analysed.type;
+                ClassFile c = analysed.classFile;
+                if (!silent) {
+                    type = dcCommonState.getObfuscationMapping().get(type);
+                    progressDumper.analysingType(type);
+                }
+                Dumper d = new ToStringDumper();  // Sentinel dumper.
+                try {
+                    d = getTopLevelDumper(dcCommonState, c, analysed.collectingDumper, dumperFactory, illegalIdentifierDump, summaryDumper);
+                    dumpType(c, d, false);
+                    if (lomem) {
+                        toRelease.add(c);
+                        if (toRelease.size() >= window) releaseCode(codeLock, toRelease);
+                    }
+                    if (analysed.fingerprint != null) {
+                        incrementalManifest.record(forVersion, analysed.type, getOutputType(dcCommonState, c), analysed.fingerprint);
+                    }
+                } catch (Dumper.CannotCreate e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    d.print(e.toString()).newln().newln().newln();
+                } finally {
+                    d.close();
+                }
+            }
+            releaseCode(codeLock, toRelease);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void releaseCode(ReadWriteLock codeLock, List<ClassFile> classFiles) {
+        codeLock.writeLock().lock();
+        try {
+            for (ClassFile classFile : classFiles) {
+                classFile.releaseCode();
+            }
+        } finally {
+            codeLock.writeLock().unlock();
+        }
+        classFiles.clear();
+    }
+
+    private static final int PARALLEL_WINDOW_PER_THREAD = 4;
+
+    /*
+     * Returns null if the type was an inner class, unchanged since an incremental run, or could not be analysed.
+     */
+    private static AnalysedType getAnalysedType(Future<AnalysedType> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfusedCFRException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) throw (Error) cause;
+            return null;
+        }
+    }
+
+    private static class AnalysedType {
+        private final JavaTypeInstance type;
+        private final ClassFile classFile;
+        private final TypeUsageCollectingDumper collectingDumper;
+        private final String fingerprint;
+
+        private AnalysedType(JavaTypeInstance type, ClassFile classFile, TypeUsageCollectingDumper collectingDumper, String fingerprint) {
+            this.type = type;
+            this.classFile = classFile;
+            this.collectingDumper = collectingDumper;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cfr-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -106,6 +106,20 @@ public class PluginRunner {
         public DumperFactory getFactoryWithPrefix(String prefix, int version) {
             return this;
         }
+
+        @Override
+        public MetricsDumper getMetricsDumper() {
+            return new StdErrMetricsDumper();
+        }
+
+        @Override
+        public void finishOutput() {
+        }
+
+        @Override
+        public IncrementalManifest getIncrementalManifest() {
+            return null;
+        }
     }
 
     public String getDecompilationFor(String classFilePath) {
@@ -21,6 +21,14 @@ public interface OutputSinkFactory {
         DECOMPILED(SinkReturns.Decompiled.class),
         /** Sinks will accept {@link org.benf.cfr.reader.api.SinkReturns.DecompiledMultiVer} */
         DECOMPILED_MULTIVER(SinkReturns.DecompiledMultiVer.class),
+        /**
+         * Sinks will accept a stream of {@link org.benf.cfr.reader.api.SinkReturns.DecompiledChunk},
+         * terminating in a chunk for which isEnd() is true, for any given class.
+         *
+         * Unlike DECOMPILED, the java is handed over while it is produced, so the whole of a large
+         * class is never held as a single string.
+         */
+        DECOMPILED_CHUNKED(SinkReturns.DecompiledChunk.class),
         /** Sinks will accept {@link org.benf.cfr.reader.api.SinkReturns.ExceptionMessage} */
         EXCEPTION_MESSAGE(SinkReturns.ExceptionMessage.class),
         /**
@@ -41,7 +49,11 @@ public interface OutputSinkFactory {
          *
          * see {@link org.benf.cfr.reader.api.SinkReturns.LineNumberMapping} for further details.
          */
-        LINE_NUMBER_MAPPING(SinkReturns.LineNumberMapping.class);
+        LINE_NUMBER_MAPPING(SinkReturns.LineNumberMapping.class),
+        /**
+         * Sink will accept {@link org.benf.cfr.reader.api.SinkReturns.PassMetric}s, if pass profiling is enabled.
+         */
+        PASS_METRIC(SinkReturns.PassMetric.class);
 
         /**
          * Get the type of message that the sink will be expected to take.
@@ -66,7 +78,9 @@ public interface OutputSinkFactory {
         /** This sink will receive any exceptions that occur */
         EXCEPTION,
         /** This sink will receive line number information */
-        LINENUMBER
+        LINENUMBER,
+        /** This sink will receive analysis pass metrics (if enabled with profilepasses) */
+        METRICS
     }
 
     /**
@@ -64,6 +64,37 @@ public interface SinkReturns {
         int getRuntimeFrom();
     }
 
+    /**
+     * A piece of the decompiled java for one class.  Chunks for a class arrive in order, and
+     * concatenating them gives the same text as {@link Decompiled#getJava()}.
+     */
+    interface DecompiledChunk {
+        /**
+         * @return the package of the class that has been analysed
+         */
+        String getPackageName();
+
+        /**
+         * @return the name of the class that has been analysed
+         */
+        String getClassName();
+
+        /**
+         * @return version of the runtime that this class is visible from - see {@link DecompiledMultiVer}.
+         */
+        int getRuntimeFrom();
+
+        /**
+         * @return the next piece of decompiled java.  This is bounded in size, and is empty for the end chunk.
+         */
+        CharSequence getJava();
+
+        /**
+         * @return true if this is the last chunk for the class.
+         */
+        boolean isEnd();
+    }
+
     interface LineNumberMapping {
         /**
          * @return
@@ -108,6 +139,45 @@ public interface SinkReturns {
         NavigableMap<Integer, Integer> getClassFileMappings();
     }
 
+    /**
+     * Time and allocation spent in one named analysis pass, for one method, in one recovery attempt.
+     * Only produced if pass profiling is enabled.
+     */
+    interface PassMetric {
+        /**
+         * @return the path (jar or class file) being analysed when this was published.
+         */
+        String getPath();
+
+        /**
+         * @return the raw name of the class containing the method.
+         */
+        String getClassName();
+
+        String getMethodName();
+
+        String getMethodDescriptor();
+
+        /**
+         * @return the index of the recovery attempt - 0 is the initial analysis.
+         */
+        int getRecoveryPass();
+
+        String getPassName();
+
+        /**
+         * @return how many times the pass ran during this attempt.
+         */
+        int getCount();
+
+        long getElapsedNanos();
+
+        /**
+         * @return bytes allocated by the analysing thread during the pass, or -1 if the JVM can't report this.
+         */
+        long getAllocatedBytes();
+    }
+
     enum TokenTypeFlags {
         DEFINES
     }
@@ -66,6 +66,8 @@ import org.benf.cfr.reader.util.UnverifiableJumpException;
 import org.benf.cfr.reader.util.bytestream.ByteData;
 import org.benf.cfr.reader.util.bytestream.OffsettingByteData;
 import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.Dumper;
@@ -74,6 +76,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -84,6 +87,15 @@ public class CodeAnalyser {
     private Method method;
 
     private Op04StructuredStatement analysed;
+    /*
+     * Under --threads, the same method can be reached from more than one top level class (inlining, inner
+     * classes).  Whichever thread gets here first does the analysis, anyone else waits for its result.
+     *
+     * A thread waiting on an analysis which is (transitively) waiting on it is recursive inlining, just
+     * across threads, so fails the same way as the single threaded case, rather than deadlocking.
+     */
+    private volatile Thread analysingThread;
+    private static final Map<Thread, CodeAnalyser> waitingFor = MapFactory.newConcurrentMap();
     private static final Op04StructuredStatement POISON = new Op04StructuredStatement(new StructuredComment("Analysis utterly failed (Recursive inlining?)"));
 
     public CodeAnalyser(AttributeCode attributeCode) {
@@ -164,21 +176,73 @@ public class CodeAnalyser {
      * This method should not throw.  If it does, something serious has gone wrong.
      */
     public Op04StructuredStatement getAnalysis(DCCommonState dcCommonState) {
-        if (analysed == POISON) {
-            /*
-             * We shouldn't get here, unless a method needs to inline a copy of itself.
-             * (which can't end well!)
-             *
-             * Seen when decompiling scala - a lambda which (to java) looks like an
-             * intermediate.
-             */
-            throw new ConfusedCFRException("Recursive analysis");
+        Thread current = Thread.currentThread();
+        synchronized (this) {
+            while (analysed == POISON && analysingThread != null && analysingThread != current) {
+                awaitAnalysis(current);
+            }
+            if (analysed == POISON) {
+                /*
+                 * We shouldn't get here, unless a method needs to inline a copy of itself.
+                 * (which can't end well!)
+                 *
+                 * Seen when decompiling scala - a lambda which (to java) looks like an
+                 * intermediate.
+                 */
+                throw new ConfusedCFRException("Recursive analysis");
+            }
+            if (analysed != null) {
+                return analysed;
+            }
+            analysed = POISON;
+            analysingThread = current;
+        }
+        Op04StructuredStatement res = POISON;
+        try {
+            res = analyse(dcCommonState);
+        } finally {
+            synchronized (this) {
+                analysed = res;
+                analysingThread = null;
+                notifyAll();
+            }
+        }
+        return res;
+    }
+
+    /*
+     * Called holding our lock, while another thread is analysing us.
+     */
+    private void awaitAnalysis(Thread current) {
+        waitingFor.put(current, this);
+        try {
+            if (waitsOn(analysingThread, current)) {
+                throw new ConfusedCFRException("Recursive analysis");
+            }
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfusedCFRException(e);
+        } finally {
+            waitingFor.remove(current);
         }
-        if (analysed != null) {
-            return analysed;
+    }
+
+    /*
+     * Is thread (transitively) waiting for an analysis being run by target?
+     */
+    private static boolean waitsOn(Thread thread, Thread target) {
+        Set<Thread> seen = SetFactory.newIdentitySet();
+        while (thread != null && seen.add(thread)) {
+            if (thread == target) return true;
+            CodeAnalyser awaited = waitingFor.get(thread);
+            if (awaited == null) return false;
+            thread = awaited.analysingThread;
         }
-        analysed = POISON;
+        return false;
+    }
 
+    private Op04StructuredStatement analyse(DCCommonState dcCommonState) {
         Options options = dcCommonState.getOptions();
         List<Op01WithProcessedDataAndByteJumps> instrs = getInstrs();
 
@@ -189,23 +253,40 @@ public class CodeAnalyser {
          */
         BytecodeMeta bytecodeMeta = new BytecodeMeta(instrs, originalCodeAttribute, options);
 
+        /*
+         * The budget covers every pass we try, so the deadline is fixed up front.
+         */
+        int timeBudget = options.getOption(OptionsImpl.METHOD_TIME_BUDGET);
+        Long deadline = timeBudget > 0 ? System.nanoTime() + timeBudget * 1000000L : null;
+
         if (options.optionIsSet(OptionsImpl.FORCE_PASS)) {
             int pass = options.getOption(OptionsImpl.FORCE_PASS);
             if (pass < 0 || pass >= recoveryOptionsArr.length) {
                 throw new IllegalArgumentException("Illegal recovery pass idx");
             }
             RecoveryOptions.Applied applied = recoveryOptionsArr[pass].apply(dcCommonState, options, bytecodeMeta);
-            res = getAnalysisOrWrapFail(pass, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta);
+            res = getAnalysisOrWrapFail(pass, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta, deadline);
         } else {
 
-            res = getAnalysisOrWrapFail(0, instrs, dcCommonState, options, null, bytecodeMeta);
+            res = getAnalysisOrWrapFail(0, instrs, dcCommonState, options, null, bytecodeMeta, deadline);
 
+            /*
+             * Recovery passes have to run one after the other, on this thread - although each pass builds its own
+             * op graphs, they share (and mutate) state hanging off the method: the variable namer and the named
+             * variables it caches, the prototype's computed parameters, local class usage, and the analysis of
+             * any lambda bodies we inline (which is reentrancy checked via POISON).  Running them concurrently
+             * would race on those, and could pick up renames from a pass the sequential ladder never runs.
+             *
+             * If you want to shorten the ladder for big methods, use --threads to overlap them with other classes.
+             */
             if (res.isFailed() && options.getOption(OptionsImpl.RECOVER)) {
                 int passIdx = 1;
                 for (RecoveryOptions recoveryOptions : recoveryOptionsArr) {
+                    // Out of time - keep the best we have.
+                    if (deadline != null && System.nanoTime() - deadline > 0) break;
                     RecoveryOptions.Applied applied = recoveryOptions.apply(dcCommonState, options, bytecodeMeta);
                     if (!applied.valid) continue;
-                    AnalysisResult nextRes = getAnalysisOrWrapFail(passIdx++, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta);
+                    AnalysisResult nextRes = getAnalysisOrWrapFail(passIdx++, instrs, dcCommonState, applied.options, applied.comments, bytecodeMeta, deadline);
                     if (res.isFailed() && nextRes.isFailed()) {
                         if (!nextRes.isThrown()) {
                             if (res.isThrown()) {
@@ -234,8 +315,7 @@ public class CodeAnalyser {
          */
         res.getAnonymousClassUsage().useNotes();
 
-        analysed = res.getCode();
-        return analysed;
+        return res.getCode();
     }
 
     /*
@@ -273,13 +353,22 @@ public class CodeAnalyser {
         return instrs;
     }
 
-    private AnalysisResult getAnalysisOrWrapFail(int passIdx, List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState commonState, Options options, List<DecompilerComment> extraComments, BytecodeMeta bytecodeMeta) {
+    private AnalysisResult getAnalysisOrWrapFail(int passIdx, List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState commonState, Options options, List<DecompilerComment> extraComments, BytecodeMeta bytecodeMeta, Long deadline) {
+        PassMetrics passMetrics = commonState.getPassMetrics();
+        PassTimer profiler = passMetrics == null ? PassTimerNop.INSTANCE : new PassTimerImpl(passMetrics, method, passIdx);
+        PassTimer passTimer = profiler;
+        if (deadline != null) {
+            passTimer = new PassTimerBudget(profiler, deadline, "Exceeded time budget of " + options.getOption(OptionsImpl.METHOD_TIME_BUDGET) + "ms (--" + OptionsImpl.METHOD_TIME_BUDGET.getName() + ")");
+        }
         try {
-            AnalysisResult res = getAnalysisInner(instrs, commonState, options, bytecodeMeta, passIdx);
+            AnalysisResult res = getAnalysisInner(instrs, commonState, options, bytecodeMeta, passIdx, passTimer);
             if (extraComments != null) res.getComments().addComments(extraComments);
             return res;
         } catch (RuntimeException e) {
+            profiler.mark("(failed)");
             return new AnalysisResultFromException(e, options.getOption(OptionsImpl.DUMP_EXCEPTION_STACK_TRACE));
+        } finally {
+            profiler.finish();
         }
     }
 
@@ -288,7 +377,7 @@ public class CodeAnalyser {
      *
      * passIdx is only useful for breakpointing.
      */
-    private AnalysisResult getAnalysisInner(List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta, int passIdx) {
+    private AnalysisResult getAnalysisInner(List<Op01WithProcessedDataAndByteJumps> instrs, DCCommonState dcCommonState, Options options, BytecodeMeta bytecodeMeta, int passIdx, PassTimer passTimer) {
 
         boolean willSort = options.getOption(OptionsImpl.FORCE_TOPSORT) == Troolean.TRUE;
 
@@ -355,7 +444,7 @@ public class CodeAnalyser {
                 }
             }
         }
-
+        passTimer.mark("Op01.createOp2");
 
         BlockIdentifierFactory blockIdentifierFactory = new BlockIdentifierFactory();
 
@@ -392,6 +481,7 @@ public class CodeAnalyser {
              */
             exceptions.removeSynchronisedHandlers(lutByIdx);
         }
+        passTimer.mark("ExceptionAggregator");
 
         /*
          * If we're dealing with lambdas, remove class file getter.
@@ -403,16 +493,21 @@ public class CodeAnalyser {
         if (options.getOption(OptionsImpl.REWRITE_LAMBDAS, classFileVersion) &&
                 bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.USES_INVOKEDYNAMIC)) {
             Op02GetClassRewriter.removeInvokeGetClass(classFile, op2list, GetClassTestLambda.INSTANCE);
+            passTimer.mark("Op02GetClassRewriter.removeInvokeGetClass");
         }
         Op02GetClassRewriter.removeInvokeGetClass(classFile, op2list, GetClassTestInnerConstructor.INSTANCE);
+        passTimer.mark("Op02GetClassRewriter.removeInvokeGetClass");
 
         long codeLength = originalCodeAttribute.getCodeLength();
         if (options.getOption(OptionsImpl.CONTROL_FLOW_OBF)) {
             Op02Obf.removeControlFlowExceptions(method, exceptions, op2list, lutByOffset);
+            passTimer.mark("Op02Obf.removeControlFlowExceptions");
             // Bundled under control flow obfuscation because it can make loops less pleasant.
             Op02Obf.removeNumericObf(method, op2list);
+            passTimer.mark("Op02Obf.removeNumericObf");
         }
         op2list = Op02WithProcessedDataAndRefs.insertExceptionBlocks(op2list, exceptions, lutByOffset, cp, codeLength, options);
+        passTimer.mark("Op02WithProcessedDataAndRefs.insertExceptionBlocks");
         // lutByOffset is no longer valid at this point, but we might still need it to determine variable lifetime (i.e what
         // was the instruction BEFORE this one)
 
@@ -424,6 +519,7 @@ public class CodeAnalyser {
          */
         if (aggressiveSizeReductions) {
             Op02RedundantStoreRewriter.rewrite(op2list, originalCodeAttribute.getMaxLocals());
+            passTimer.mark("Op02RedundantStoreRewriter.rewrite");
         }
 
 
@@ -432,6 +528,7 @@ public class CodeAnalyser {
         // This is the point at which we combine temporaries from merging
         // stacks.
         DecompilerComment o2stackComment = Op02WithProcessedDataAndRefs.populateStackInfo(op2list, method);
+        passTimer.mark("Op02WithProcessedDataAndRefs.populateStackInfo");
 
         /* Extra fun.  A ret can have a jump back to the instruction immediately following the JSR that called it.
          * So we have to search for RET instructions, then for each of them find any JSRs which could call it, and add
@@ -442,8 +539,10 @@ public class CodeAnalyser {
          * DIFFERENT stack depth).
          */
         if (Op02WithProcessedDataAndRefs.processJSR(op2list)) {
+            passTimer.mark("Op02WithProcessedDataAndRefs.processJSR");
             // Repopulate stack info, as it will have changed, as we might have cloned instructions.
             o2stackComment = Op02WithProcessedDataAndRefs.populateStackInfo(op2list, method);
+            passTimer.mark("Op02WithProcessedDataAndRefs.populateStackInfo");
         }
         if (o2stackComment != null) {
             comments.addComment(o2stackComment);
@@ -455,10 +554,12 @@ public class CodeAnalyser {
         // can generate bytecode with unreachable operations, which confuses later stages which
         // expect all parents of opcodes to have been processed in a DFS.
         Op02WithProcessedDataAndRefs.unlinkUnreachable(op2list);
+        passTimer.mark("Op02WithProcessedDataAndRefs.unlinkUnreachable");
 
 
         // Discover slot re-use, infer invisible constructor parameters, etc.
         Op02WithProcessedDataAndRefs.discoverStorageLiveness(method, comments, op2list, bytecodeMeta);
+        passTimer.mark("Op02WithProcessedDataAndRefs.discoverStorageLiveness");
 
         // Create a non final version...
         final VariableFactory variableFactory = new VariableFactory(method, bytecodeMeta);
@@ -467,68 +568,91 @@ public class CodeAnalyser {
                 new TypeHintRecoveryImpl(bytecodeMeta) : TypeHintRecoveryNone.INSTANCE;
 
         List<Op03SimpleStatement> op03SimpleParseNodes = Op02WithProcessedDataAndRefs.convertToOp03List(op2list, method, variableFactory, blockIdentifierFactory, dcCommonState, comments, typeHintRecovery);
+        passTimer.mark("Op02WithProcessedDataAndRefs.convertToOp03List");
         // Renumber, just in case JSR stage (or something) has left bad labellings.
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         // Expand any 'multiple' statements (eg from dups)
         Misc.flattenCompoundStatements(op03SimpleParseNodes);
+        passTimer.mark("Misc.flattenCompoundStatements");
 
         // Before we get complicated, see if there are any values which have been left with null/void types, but have
         // known base information which can improve it.
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new NullTypedLValueRewriter());
+        passTimer.mark("NullTypedLValueRewriter");
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new BadBoolAssignmentRewriter());
+        passTimer.mark("BadBoolAssignmentRewriter");
         // Very early, we make a pass through collecting all the method calls for a given type
         // SPECIFICALLY by type pointer, don't alias identical types.
         // We then see if we can infer information from RHS <- LHS re generics, but make sure that we
         // don't do it over aggressively (see UntypedMapTest);
         GenericInferer.inferGenericObjectInfoFromCalls(op03SimpleParseNodes);
+        passTimer.mark("GenericInferer.inferGenericObjectInfoFromCalls");
 
         if (options.getOption(OptionsImpl.RELINK_CONSTANTS)) {
             Op03Rewriters.relinkInstanceConstants(classFile.getRefClassType(), op03SimpleParseNodes, dcCommonState);
+            passTimer.mark("Op03Rewriters.relinkInstanceConstants");
         }
 
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         if (aggressiveSizeReductions) {
             op03SimpleParseNodes = LValuePropSimple.condenseSimpleLValues(op03SimpleParseNodes);
+            passTimer.mark("LValuePropSimple.condenseSimpleLValues");
         }
 
         Op03Rewriters.nopIsolatedStackValues(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.nopIsolatedStackValues");
 
         Op03SimpleStatement.assignSSAIdentifiers(method, op03SimpleParseNodes);
+        passTimer.mark("Op03SimpleStatement.assignSSAIdentifiers");
 
         // Fix static instance usage.
         Op03Rewriters.condenseStaticInstances(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.condenseStaticInstances");
 
         // Condense pointless assignments
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        passTimer.mark("LValueProp.condenseLValues");
 
         if (options.getOption(OptionsImpl.REMOVE_DEAD_CONDITIONALS) == Troolean.TRUE) {
             // This removes impossible conditionals, but could hide real code, so we want
             // to avoid doing this unless necessary.
             op03SimpleParseNodes = Op03Rewriters.removeDeadConditionals(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.removeDeadConditionals");
         }
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         // Before we expand raw switches, try to spot a particularly nasty pattern that kotlin
         // generates for string switches.
         op03SimpleParseNodes = KotlinSwitchHandler.extractStringSwitches(op03SimpleParseNodes, bytecodeMeta);
+        passTimer.mark("KotlinSwitchHandler.extractStringSwitches");
         // Expand raw switch statements into more useful ones.
         SwitchReplacer.replaceRawSwitches(method, op03SimpleParseNodes, blockIdentifierFactory, options, comments, bytecodeMeta);
+        passTimer.mark("SwitchReplacer.replaceRawSwitches");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         // Remove 2nd (+) jumps in pointless jump chains.
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removePointlessJumps");
 
         // Try to eliminate catch temporaries.
         op03SimpleParseNodes = Op03Rewriters.eliminateCatchTemporaries(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.eliminateCatchTemporaries");
 
         Op03Rewriters.identifyCatchBlocks(op03SimpleParseNodes, blockIdentifierFactory);
+        passTimer.mark("Op03Rewriters.identifyCatchBlocks");
 
         Op03Rewriters.combineTryCatchBlocks(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.combineTryCatchBlocks");
 
         if (options.getOption(OptionsImpl.COMMENT_MONITORS)) {
             Op03Rewriters.commentMonitors(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.commentMonitors");
         }
 
         //      Op03SimpleStatement.removePointlessExpressionStatements(op03SimpleParseNodes);
@@ -537,86 +661,122 @@ public class CodeAnalyser {
 
         // Rewrite new / constructor pairs.
         Op03Rewriters.condenseConstruction(dcCommonState, method, op03SimpleParseNodes, anonymousClassUsage);
+        passTimer.mark("Op03Rewriters.condenseConstruction");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        passTimer.mark("LValueProp.condenseLValues");
         Op03Rewriters.condenseLValueChain1(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.condenseLValueChain1");
 
         StaticInitReturnRewriter.rewrite(options, method, op03SimpleParseNodes);
+        passTimer.mark("StaticInitReturnRewriter.rewrite");
 
         op03SimpleParseNodes = Op03Rewriters.removeRedundantTries(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removeRedundantTries");
 
         FinallyRewriter.identifyFinally(options, method, op03SimpleParseNodes, blockIdentifierFactory);
+        passTimer.mark("FinallyRewriter.identifyFinally");
 
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, !willSort);
+        passTimer.mark("Cleaner.removeUnreachableCode");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         /*
          * See if try blocks can be extended with simple returns here.  This is an extra pass, because we might have
          * missed backjumps from catches earlier.
          */
         Op03Rewriters.extendTryBlocks(dcCommonState, op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.extendTryBlocks");
         Op03Rewriters.combineTryCatchEnds(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.combineTryCatchEnds");
 
         // Remove LValues which are on their own as expressionstatements.
         Op03Rewriters.removePointlessExpressionStatements(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removePointlessExpressionStatements");
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, !willSort);
+        passTimer.mark("Cleaner.removeUnreachableCode");
 
         // Now we've done our first stage condensation, we want to transform assignments which are
         // self updates into preChanges, if we can.  I.e. x = x | 3  ->  x |= 3,  x = x + 1 -> x+=1 (===++x).
         // (we do this here rather than taking advantage of INC opcodes as this allows us to catch the former)
         Op03Rewriters.replacePrePostChangeAssignments(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.replacePrePostChangeAssignments");
 
         // Some pre-changes can be converted into post-changes.
         Op03Rewriters.pushPreChangeBack(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.pushPreChangeBack");
 
         Op03Rewriters.condenseLValueChain2(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.condenseLValueChain2");
 
         // Condense again, now we've simplified constructors.
         // Inline assingments need to be dealt with HERE (!).
         Op03Rewriters.collapseAssignmentsIntoConditionals(op03SimpleParseNodes, options, classFileVersion);
+        passTimer.mark("Op03Rewriters.collapseAssignmentsIntoConditionals");
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        passTimer.mark("LValueProp.condenseLValues");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
             op03SimpleParseNodes = RemoveDeterministicJumps.apply(method, op03SimpleParseNodes);
+            passTimer.mark("RemoveDeterministicJumps.apply");
         }
 
         if (options.getOption(OptionsImpl.FORCE_TOPSORT) == Troolean.TRUE) {
             if (options.getOption(OptionsImpl.FORCE_RETURNING_IFS) == Troolean.TRUE) {
                 Op03Rewriters.replaceReturningIfs(op03SimpleParseNodes, true);
+                passTimer.mark("Op03Rewriters.replaceReturningIfs");
             }
             if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
                 Op03Rewriters.propagateToReturn2(op03SimpleParseNodes);
+                passTimer.mark("Op03Rewriters.propagateToReturn2");
             }
             ExceptionRewriters.handleEmptyTries(op03SimpleParseNodes);
+            passTimer.mark("ExceptionRewriters.handleEmptyTries");
 
             op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, false);
+            passTimer.mark("Cleaner.removeUnreachableCode");
 
             op03SimpleParseNodes = Op03Blocks.topologicalSort(op03SimpleParseNodes, comments, options);
+            passTimer.mark("Op03Blocks.topologicalSort");
             Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.removePointlessJumps");
 
             /*
              * Now we've sorted, we need to rebuild switch blocks.....
              */
             SwitchReplacer.rebuildSwitches(op03SimpleParseNodes, options, comments, bytecodeMeta);
+            passTimer.mark("SwitchReplacer.rebuildSwitches");
             /*
              * This set of operations is /very/ aggressive.
              */
             // This is not necessarily a sensible thing to do, but we're being aggressive...
             Op03Rewriters.rejoinBlocks(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.rejoinBlocks");
             Op03Rewriters.extendTryBlocks(dcCommonState, op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.extendTryBlocks");
             op03SimpleParseNodes = Op03Blocks.combineTryBlocks(op03SimpleParseNodes);
+            passTimer.mark("Op03Blocks.combineTryBlocks");
             Op03Rewriters.combineTryCatchEnds(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.combineTryCatchEnds");
             Op03Rewriters.rewriteTryBackJumps(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.rewriteTryBackJumps");
             FinallyRewriter.identifyFinally(options, method, op03SimpleParseNodes, blockIdentifierFactory);
+            passTimer.mark("FinallyRewriter.identifyFinally");
             if (options.getOption(OptionsImpl.FORCE_RETURNING_IFS) == Troolean.TRUE) {
                 Op03Rewriters.replaceReturningIfs(op03SimpleParseNodes, true);
+                passTimer.mark("Op03Rewriters.replaceReturningIfs");
             }
         }
         if (options.getOption(OptionsImpl.AGGRESSIVE_DUFF) == Troolean.TRUE) {
             if (bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.SWITCHES)) {
                 op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+                passTimer.mark("Cleaner.sortAndRenumber");
                 op03SimpleParseNodes = SwitchReplacer.rewriteDuff(op03SimpleParseNodes, variableFactory, comments, options);
+                passTimer.mark("SwitchReplacer.rewriteDuff");
             }
         }
         /*
@@ -625,38 +785,52 @@ public class CodeAnalyser {
          */
         if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
             RemoveDeterministicJumps.propagateToReturn(method, op03SimpleParseNodes);
+            passTimer.mark("RemoveDeterministicJumps.propagateToReturn");
         }
 
         boolean reloop;
         do {
             Op03Rewriters.rewriteNegativeJumps(op03SimpleParseNodes, true);
+            passTimer.mark("Op03Rewriters.rewriteNegativeJumps");
 
             Op03Rewriters.collapseAssignmentsIntoConditionals(op03SimpleParseNodes, options, classFileVersion);
+            passTimer.mark("Op03Rewriters.collapseAssignmentsIntoConditionals");
 
             // We need to resugar early as anonymous arrays will hurt conditional rollup.
             AnonymousArray.resugarAnonymousArrays(op03SimpleParseNodes);
+            passTimer.mark("AnonymousArray.resugarAnonymousArrays");
             // Collapse conditionals into || / &&
             reloop = Op03Rewriters.condenseConditionals(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.condenseConditionals");
             // Condense odder conditionals, which may involve inline ternaries which are
             // hard to work out later.  This isn't going to get everything, but may help!
             //
             reloop = reloop | Op03Rewriters.condenseConditionals2(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.condenseConditionals2");
             reloop = reloop | Op03Rewriters.normalizeDupAssigns(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.normalizeDupAssigns");
             if (reloop) {
                 LValueProp.condenseLValues(op03SimpleParseNodes);
+                passTimer.mark("LValueProp.condenseLValues");
             }
             op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+            passTimer.mark("Cleaner.removeUnreachableCode");
 
         } while (reloop);
 
         AnonymousArray.resugarAnonymousArrays(op03SimpleParseNodes);
+        passTimer.mark("AnonymousArray.resugarAnonymousArrays");
         Op03Rewriters.simplifyConditionals(op03SimpleParseNodes, false, method);
+        passTimer.mark("Op03Rewriters.simplifyConditionals");
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
 
         // Rewrite conditionals which jump into an immediate jump (see specifics)
         Op03Rewriters.rewriteNegativeJumps(op03SimpleParseNodes, false);
+        passTimer.mark("Op03Rewriters.rewriteNegativeJumps");
 
         Op03Rewriters.optimiseForTypes(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.optimiseForTypes");
 
         // If statements which end up jumping to the final return can really confuse loop detection, so we want
         // to remove them.
@@ -674,129 +848,170 @@ public class CodeAnalyser {
 
         if (options.getOption(OptionsImpl.ECLIPSE)) {
             Op03Rewriters.eclipseLoopPass(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.eclipseLoopPass");
         }
 
         // Identify simple while loops.
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        passTimer.mark("Cleaner.removeUnreachableCode");
         LoopIdentifier.identifyLoops1(method, op03SimpleParseNodes, blockIdentifierFactory);
+        passTimer.mark("LoopIdentifier.identifyLoops1");
 
         Op03Rewriters.rewriteBadCompares(variableFactory, op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.rewriteBadCompares");
 
         // After we've identified loops, try to push any instructions through a goto
         op03SimpleParseNodes = Op03Rewriters.pushThroughGoto(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.pushThroughGoto");
 
         // Replacing returning ifs early (above, aggressively) interferes with some nice output.
         // Normally we'd do it AFTER loops.
         if (options.getOption(OptionsImpl.FORCE_RETURNING_IFS) == Troolean.TRUE) {
             Op03Rewriters.replaceReturningIfs(op03SimpleParseNodes, false);
+            passTimer.mark("Op03Rewriters.replaceReturningIfs");
         }
 
         op03SimpleParseNodes = Cleaner.sortAndRenumber(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.sortAndRenumber");
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        passTimer.mark("Cleaner.removeUnreachableCode");
 
         // Perform this before simple forward if detection, as it allows us to not have to consider
         // gotos which have been relabelled as continue/break.
         Op03Rewriters.rewriteBreakStatements(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.rewriteBreakStatements");
         Op03Rewriters.rewriteDoWhileTruePredAsWhile(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.rewriteDoWhileTruePredAsWhile");
         Op03Rewriters.rewriteWhilesAsFors(options, op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.rewriteWhilesAsFors");
 
         // TODO : I think this is now redundant.
         Op03Rewriters.removeSynchronizedCatchBlocks(options, op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removeSynchronizedCatchBlocks");
 
         // identify conditionals which are of the form if (a) { xx } [ else { yy } ]
         // where xx and yy have no GOTOs in them.
         // We need another pass of this to remove jumps which are next to each other except for nops
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removeUselessNops");
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removePointlessJumps");
         // BUT....
         // After we've removed pointless jumps, let's possibly re-add them, so that the structure of
         // try blocks doesn't end up with confusing jumps.  See ExceptionTest11.
         // (this removal and re-adding may seem daft, (and it often is), but we normalise code
         // and handle more cases by doing it).
         Op03Rewriters.extractExceptionJumps(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.extractExceptionJumps");
         Op03Rewriters.extractAssertionJumps(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.extractAssertionJumps");
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        passTimer.mark("Cleaner.removeUnreachableCode");
 
         // Identify simple (nested) conditionals - note that this also generates ternary expressions,
         // if the conditional is simple enough.
         ConditionalRewriter.identifyNonjumpingConditionals(op03SimpleParseNodes, blockIdentifierFactory, options);
+        passTimer.mark("ConditionalRewriter.identifyNonjumpingConditionals");
 
         // If we have a conditional JUST before a do statement which jumps in, then see if we can
         // safely move it inside, and have another go.
         // After we've done this we need another go at identifyingNonJumpingConditionals, however that happens below.
         if (options.optionIsSet(OptionsImpl.AGGRESSIVE_DO_COPY)) {
             Op03Rewriters.cloneCodeFromLoop(op03SimpleParseNodes, options, comments);
+            passTimer.mark("Op03Rewriters.cloneCodeFromLoop");
         }
         if (options.getOption(OptionsImpl.AGGRESSIVE_DO_EXTENSION) == Troolean.TRUE) {
             Op03Rewriters.moveJumpsIntoDo(variableFactory, op03SimpleParseNodes, options, comments);
+            passTimer.mark("Op03Rewriters.moveJumpsIntoDo");
         }
 
         // Condense again, now we've simplified conditionals, ternaries, etc.
         LValueProp.condenseLValues(op03SimpleParseNodes);
+        passTimer.mark("LValueProp.condenseLValues");
         if (options.getOption(OptionsImpl.FORCE_COND_PROPAGATE) == Troolean.TRUE) {
             Op03Rewriters.propagateToReturn2(op03SimpleParseNodes);
+            passTimer.mark("Op03Rewriters.propagateToReturn2");
         }
 
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removeUselessNops");
 
 
         // By now, we've (re)moved several statements, so it's possible that some jumps can be rewritten to
         // breaks again.
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removePointlessJumps");
         Op03Rewriters.rewriteBreakStatements(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.rewriteBreakStatements");
 
         // See if we can classify any more gotos - i.e. the last statement in a try block
         // which jumps to immediately after the catch block.
         //
         // While it seems perverse to have another pass at this here, it seems to yield the best results.
         Op03Rewriters.classifyGotos(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.classifyGotos");
         if (options.getOption(OptionsImpl.LABELLED_BLOCKS)) {
             Op03Rewriters.classifyAnonymousBlockGotos(op03SimpleParseNodes, false);
+            passTimer.mark("Op03Rewriters.classifyAnonymousBlockGotos");
         }
         //
         // By this point, we've tried to classify ternaries.  We could try pushing some literals
         // very aggressively. (i.e. a=1, if (a) b=1 else b =0; return b. ) -> return 1;
         //
         ConditionalRewriter.identifyNonjumpingConditionals(op03SimpleParseNodes, blockIdentifierFactory, options);
+        passTimer.mark("ConditionalRewriter.identifyNonjumpingConditionals");
 
         /*
          * Now we've got here, there's no benefit in having spurious inline assignments.  Where possible,
          * pull them out!
          */
         InlineDeAssigner.extractAssignments(op03SimpleParseNodes);
+        passTimer.mark("InlineDeAssigner.extractAssignments");
 
         // Introduce java 6 style for (x : array)
         boolean checkLoopTypeClash = false;
         if (options.getOption(OptionsImpl.ARRAY_ITERATOR, classFileVersion)) {
             IterLoopRewriter.rewriteArrayForLoops(op03SimpleParseNodes);
+            passTimer.mark("IterLoopRewriter.rewriteArrayForLoops");
             checkLoopTypeClash = true;
         }
         // and for (x : iterable)
         if (options.getOption(OptionsImpl.COLLECTION_ITERATOR, classFileVersion)) {
             IterLoopRewriter.rewriteIteratorWhileLoops(op03SimpleParseNodes);
+            passTimer.mark("IterLoopRewriter.rewriteIteratorWhileLoops");
             checkLoopTypeClash = true;
         }
 
         SynchronizedBlocks.findSynchronizedBlocks(op03SimpleParseNodes);
+        passTimer.mark("SynchronizedBlocks.findSynchronizedBlocks");
 
         Op03SimpleStatement.removePointlessSwitchDefaults(op03SimpleParseNodes);
+        passTimer.mark("Op03SimpleStatement.removePointlessSwitchDefaults");
 
         op03SimpleParseNodes = Op03Rewriters.removeUselessNops(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removeUselessNops");
 
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new StringBuilderRewriter(options, classFileVersion));
+        passTimer.mark("StringBuilderRewriter");
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new XorRewriter());
+        passTimer.mark("XorRewriter");
 
         op03SimpleParseNodes = Cleaner.removeUnreachableCode(op03SimpleParseNodes, true);
+        passTimer.mark("Cleaner.removeUnreachableCode");
 
         if (options.getOption(OptionsImpl.LABELLED_BLOCKS)) {
             // Before we handle anonymous blocks - see if we can convert any non-else if statements, which
             // Jump to a Goto Out of try, to just be an anonymous break to after that try statement.
             Op03Rewriters.labelAnonymousBlocks(op03SimpleParseNodes, blockIdentifierFactory);
+            passTimer.mark("Op03Rewriters.labelAnonymousBlocks");
         }
 
         Op03Rewriters.simplifyConditionals(op03SimpleParseNodes, true, method);
+        passTimer.mark("Op03Rewriters.simplifyConditionals");
         Op03Rewriters.extractExceptionMiddle(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.extractExceptionMiddle");
         Op03Rewriters.removePointlessJumps(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.removePointlessJumps");
 
 
         /*
@@ -805,6 +1020,7 @@ public class CodeAnalyser {
          * (albeit locals which known that they don't have a valid lookup).
          */
         Op03Rewriters.replaceStackVarsWithLocals(op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.replaceStackVarsWithLocals");
 
         /*
          * We might have eliminated temporaries which caused potential type clashes.
@@ -814,9 +1030,11 @@ public class CodeAnalyser {
          * Re-scan assignments - see if we can narrow types.
          */
         Op03Rewriters.narrowAssignmentTypes(method, op03SimpleParseNodes);
+        passTimer.mark("Op03Rewriters.narrowAssignmentTypes");
 
         if (options.getOption(OptionsImpl.SHOW_INFERRABLE, classFileVersion)) {
             Op03Rewriters.rewriteWith(op03SimpleParseNodes, new ExplicitTypeCallRewriter());
+            passTimer.mark("ExplicitTypeCallRewriter");
         }
         /*
          * It's possible to have false sharing across distinct regimes in the case of loops -
@@ -830,6 +1048,7 @@ public class CodeAnalyser {
             if (bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.ITERATED_TYPE_HINTS)) {
                 comments.addComment(DecompilerComment.ITERATED_TYPE_HINTS);
             }
+            passTimer.mark("LoopLivenessClash.detect");
         }
 
 
@@ -838,33 +1057,51 @@ public class CodeAnalyser {
             // Before we handle anonymous blocks - see if we can convert any non-else if statements, which
             // Jump to a Goto Out of try, to just be an anonymous break to after that try statement.
             Op03Rewriters.classifyAnonymousBlockGotos(op03SimpleParseNodes, true);
+            passTimer.mark("Op03Rewriters.classifyAnonymousBlockGotos");
 
             Op03Rewriters.labelAnonymousBlocks(op03SimpleParseNodes, blockIdentifierFactory);
+            passTimer.mark("Op03Rewriters.labelAnonymousBlocks");
         }
 
         Op03Rewriters.rewriteWith(op03SimpleParseNodes, new BadNarrowingArgRewriter());
+        passTimer.mark("BadNarrowingArgRewriter");
         Cleaner.reindexInPlace(op03SimpleParseNodes);
+        passTimer.mark("Cleaner.reindexInPlace");
 
         Op03SimpleStatement.noteInterestingLifetimes(op03SimpleParseNodes);
+        passTimer.mark("Op03SimpleStatement.noteInterestingLifetimes");
 
         Op04StructuredStatement block = Op03SimpleStatement.createInitialStructuredBlock(op03SimpleParseNodes);
+        passTimer.mark("Op03SimpleStatement.createInitialStructuredBlock");
 
         Op04StructuredStatement.tidyEmptyCatch(block);
+        passTimer.mark("Op04StructuredStatement.tidyEmptyCatch");
         Op04StructuredStatement.tidyTryCatch(block);
+        passTimer.mark("Op04StructuredStatement.tidyTryCatch");
         Op04StructuredStatement.convertUnstructuredIf(block);
+        passTimer.mark("Op04StructuredStatement.convertUnstructuredIf");
         Op04StructuredStatement.inlinePossibles(block);
+        passTimer.mark("Op04StructuredStatement.inlinePossibles");
         Op04StructuredStatement.removeStructuredGotos(block);
+        passTimer.mark("Op04StructuredStatement.removeStructuredGotos");
         Op04StructuredStatement.removePointlessBlocks(block);
+        passTimer.mark("Op04StructuredStatement.removePointlessBlocks");
         Op04StructuredStatement.removePointlessReturn(block);
+        passTimer.mark("Op04StructuredStatement.removePointlessReturn");
         Op04StructuredStatement.removePointlessControlFlow(block);
+        passTimer.mark("Op04StructuredStatement.removePointlessControlFlow");
         Op04StructuredStatement.removePrimitiveDeconversion(options, method, block);
+        passTimer.mark("Op04StructuredStatement.removePrimitiveDeconversion");
         if (options.getOption(OptionsImpl.LABELLED_BLOCKS)) {
             Op04StructuredStatement.insertLabelledBlocks(block);
+            passTimer.mark("Op04StructuredStatement.insertLabelledBlocks");
         }
         // It seems perverse to do a second pass for removal of pointless blocks - but now everything is in place
         // the logic is much cleaner.
         Op04StructuredStatement.removeUnnecessaryLabelledBreaks(block);
+        passTimer.mark("Op04StructuredStatement.removeUnnecessaryLabelledBreaks");
         Op04StructuredStatement.flattenNonReferencedBlocks(block);
+        passTimer.mark("Op04StructuredStatement.flattenNonReferencedBlocks");
 
         /*
          * If we can't fully structure the code, we bow out here.
@@ -874,19 +1111,25 @@ public class CodeAnalyser {
             comments.addComment(DecompilerComment.UNABLE_TO_STRUCTURE);
         } else {
             Op04StructuredStatement.tidyTypedBooleans(block);
+            passTimer.mark("Op04StructuredStatement.tidyTypedBooleans");
             Op04StructuredStatement.prettifyBadLoops(block);
+            passTimer.mark("Op04StructuredStatement.prettifyBadLoops");
 
             // Replace with a more generic interface, etc.
 
             new SwitchStringRewriter(options, classFileVersion, bytecodeMeta).rewrite(block);
+            passTimer.mark("SwitchStringRewriter");
             new SwitchEnumRewriter(dcCommonState, classFile, blockIdentifierFactory).rewrite(block);
+            passTimer.mark("SwitchEnumRewriter");
 
             // Just prior to variable scopes, if we've got any anonymous classes, and we're J10+,
             // then see if we are addressing non-existent content of anonymous objects.
             // If we are, this indicates that var was used.
             Op04StructuredStatement.rewriteExplicitTypeUsages(method, block, anonymousClassUsage, classFile);
+            passTimer.mark("Op04StructuredStatement.rewriteExplicitTypeUsages");
 
             Op04StructuredStatement.normalizeInstanceOf(block, options, classFileVersion);
+            passTimer.mark("Op04StructuredStatement.normalizeInstanceOf");
 
             // Now we've got everything nicely block structured, we can have an easier time
             // We *have* to discover variable scopes BEFORE we rewrite lambdas, because
@@ -898,66 +1141,87 @@ public class CodeAnalyser {
             // We therefore need a SEPARATE pass, post lambda, to ensure that local classes are
             // correctly processed.
             Op04StructuredStatement.discoverVariableScopes(method, block, variableFactory, options, classFileVersion, bytecodeMeta);
+            passTimer.mark("Op04StructuredStatement.discoverVariableScopes");
             if (bytecodeMeta.has(BytecodeMeta.CodeInfoFlag.INSTANCE_OF_MATCHES)) {
                 Op04StructuredStatement.tidyInstanceMatches(block);
+                passTimer.mark("Op04StructuredStatement.tidyInstanceMatches");
             }
             if (options.getOption(OptionsImpl.REWRITE_TRY_RESOURCES, classFileVersion)) {
                 Op04StructuredStatement.removeEndResource(method.getClassFile(), block);
+                passTimer.mark("Op04StructuredStatement.removeEndResource");
             }
 
             if (options.getOption(OptionsImpl.SWITCH_EXPRESSION, classFileVersion)) {
                 Op04StructuredStatement.switchExpression(method, block, comments);
+                passTimer.mark("Op04StructuredStatement.switchExpression");
             }
 
             Op04StructuredStatement.rewriteLambdas(dcCommonState, method, block);
+            passTimer.mark("Op04StructuredStatement.rewriteLambdas");
             // It's likely we'll only need to perform this due to lambdas in the previous stage, but
             // for now keep more general.
             Op04StructuredStatement.removeRedundantIntersectionCasts(dcCommonState, method, block);
+            passTimer.mark("Op04StructuredStatement.removeRedundantIntersectionCasts");
             // Now lambdas have been rewritten, reprocess ONLY to insert local class
             // definitions.
             // Note that local class definitions are removed at the point of lambda rewrite.
             Op04StructuredStatement.discoverLocalClassScopes(method, block, variableFactory, options);
+            passTimer.mark("Op04StructuredStatement.discoverLocalClassScopes");
                                             
             if (options.getOption(OptionsImpl.REMOVE_BOILERPLATE)) {
                 // Note - we ALSO try to do this in whole pass analysis.
                 if (this.method.isConstructor()) {
                     Op04StructuredStatement.removeConstructorBoilerplate(block);
+                    passTimer.mark("Op04StructuredStatement.removeConstructorBoilerplate");
                 }
             }
 
             // Some misc translations.
             Op04StructuredStatement.removeUnnecessaryVarargArrays(options, method, block);
+            passTimer.mark("Op04StructuredStatement.removeUnnecessaryVarargArrays");
 
             Op04StructuredStatement.removePrimitiveDeconversion(options, method, block);
+            passTimer.mark("Op04StructuredStatement.removePrimitiveDeconversion");
             // After the final boxing rewrite, go back and check for inconvertible type cast
             // chains.  (BoxingTest37b)
             Op04StructuredStatement.rewriteBadCastChains(options, method, block);
+            passTimer.mark("Op04StructuredStatement.rewriteBadCastChains");
             // Or narrowing casts which are no longer needed because boxed assignments allow them.
             Op04StructuredStatement.rewriteNarrowingAssignments(options, method, block);
+            passTimer.mark("Op04StructuredStatement.rewriteNarrowingAssignments");
 
             // Tidy variable names
             Op04StructuredStatement.tidyVariableNames(method, block, bytecodeMeta, comments, cp.getClassCache());
+            passTimer.mark("Op04StructuredStatement.tidyVariableNames");
 
             Op04StructuredStatement.tidyObfuscation(options, block);
+            passTimer.mark("Op04StructuredStatement.tidyObfuscation");
 
             Op04StructuredStatement.miscKeyholeTransforms(variableFactory, block);
+            passTimer.mark("Op04StructuredStatement.miscKeyholeTransforms");
 
 
             /*
              * Now finally run some extra checks to spot wierdness.
              */
             Op04StructuredStatement.applyChecker(new LooseCatchChecker(), block, comments);
+            passTimer.mark("LooseCatchChecker");
             Op04StructuredStatement.applyChecker(new VoidVariableChecker(), block, comments);
+            passTimer.mark("VoidVariableChecker");
             Op04StructuredStatement.applyChecker(new IllegalReturnChecker(), block, comments);
+            passTimer.mark("IllegalReturnChecker");
 
             Op04StructuredStatement.flattenNonReferencedBlocks(block);
+            passTimer.mark("Op04StructuredStatement.flattenNonReferencedBlocks");
 
             Op04StructuredStatement.reduceClashDeclarations(block, bytecodeMeta);
+            passTimer.mark("Op04StructuredStatement.reduceClashDeclarations");
 
             /*
              * And apply any type annotations we can.
              */
             Op04StructuredStatement.applyTypeAnnotations(originalCodeAttribute, block, lutByOffset, comments);
+            passTimer.mark("Op04StructuredStatement.applyTypeAnnotations");
         }
 
         // Only check for type clashes on first pass.
@@ -965,6 +1229,7 @@ public class CodeAnalyser {
             if (Op04StructuredStatement.checkTypeClashes(block, bytecodeMeta)) {
                 comments.addComment(DecompilerComment.TYPE_CLASHES);
             }
+            passTimer.mark("Op04StructuredStatement.checkTypeClashes");
         }
 
         return new AnalysisResultSuccessful(comments, block, anonymousClassUsage);
@@ -1026,7 +1291,7 @@ public class CodeAnalyser {
         analysed.dump(d);
     }
 
-    public void releaseCode() {
+    public synchronized void releaseCode() {
         analysed = null;
     }
 }
@@ -0,0 +1,121 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.util.List;
+
+/*
+ * Collects pass timings from (possibly concurrent) method analysis, until they are published.
+ */
+public class PassMetrics {
+    public static final String HEADER = "path\tclass\tmethod\tdescriptor\trecoveryPass\tpass\tcount\tnanos\tallocatedBytes";
+
+    private List<Record> records = ListFactory.newList();
+
+    synchronized void add(String className, String methodName, String descriptor, int recoveryPass, String passName, int count, long nanos, long allocated) {
+        records.add(new Record(className, methodName, descriptor, recoveryPass, passName, count, nanos, allocated));
+    }
+
+    /*
+     * Remove everything recorded so far, attributing it to the given path.
+     */
+    public List<SinkReturns.PassMetric> drain(String path) {
+        List<Record> drained;
+        synchronized (this) {
+            drained = records;
+            records = ListFactory.newList();
+        }
+        List<SinkReturns.PassMetric> res = ListFactory.newList();
+        for (Record record : drained) {
+            res.add(new PassMetric(path, record));
+        }
+        return res;
+    }
+
+    private static class Record {
+        private final String className;
+        private final String methodName;
+        private final String descriptor;
+        private final int recoveryPass;
+        private final String passName;
+        private final int count;
+        private final long nanos;
+        private final long allocated;
+
+        private Record(String className, String methodName, String descriptor, int recoveryPass, String passName, int count, long nanos, long allocated) {
+            this.className = className;
+            this.methodName = methodName;
+            this.descriptor = descriptor;
+            this.recoveryPass = recoveryPass;
+            this.passName = passName;
+            this.count = count;
+            this.nanos = nanos;
+            this.allocated = allocated;
+        }
+    }
+
+    private static class PassMetric implements SinkReturns.PassMetric {
+        private final String path;
+        private final Record record;
+
+        private PassMetric(String path, Record record) {
+            this.path = path;
+            this.record = record;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public String getClassName() {
+            return record.className;
+        }
+
+        @Override
+        public String getMethodName() {
+            return record.methodName;
+        }
+
+        @Override
+        public String getMethodDescriptor() {
+            return record.descriptor;
+        }
+
+        @Override
+        public int getRecoveryPass() {
+            return record.recoveryPass;
+        }
+
+        @Override
+        public String getPassName() {
+            return record.passName;
+        }
+
+        @Override
+        public int getCount() {
+            return record.count;
+        }
+
+        @Override
+        public long getElapsedNanos() {
+            return record.nanos;
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return record.allocated;
+        }
+
+        /*
+         * Tab separated, as per HEADER.
+         */
+        @Override
+        public String toString() {
+            return path + '\t' + record.className + '\t' + record.methodName + '\t' + record.descriptor + '\t' + record.recoveryPass + '\t' +
+                    record.passName + '\t' + record.count + '\t' + record.nanos + '\t' + record.allocated;
+        }
+    }
+}
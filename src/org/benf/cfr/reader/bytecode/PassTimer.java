@@ -0,0 +1,10 @@
+package org.benf.cfr.reader.bytecode;
+
+/*
+ * Attributes the work done since the previous mark to the named pass.
+ */
+public interface PassTimer {
+    void mark(String passName);
+
+    void finish();
+}
@@ -0,0 +1,31 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.util.TimeBudgetExceededException;
+
+/*
+ * Pass boundaries are also where we cooperatively give up on a method which has run out of time.
+ */
+public class PassTimerBudget implements PassTimer {
+    private final PassTimer delegate;
+    private final long deadlineNanos;
+    private final String description;
+
+    public PassTimerBudget(PassTimer delegate, long deadlineNanos, String description) {
+        this.delegate = delegate;
+        this.deadlineNanos = deadlineNanos;
+        this.description = description;
+    }
+
+    @Override
+    public void mark(String passName) {
+        delegate.mark(passName);
+        if (System.nanoTime() - deadlineNanos > 0) {
+            throw new TimeBudgetExceededException(description + " (after " + passName + ")");
+        }
+    }
+
+    @Override
+    public void finish() {
+        delegate.finish();
+    }
+}
@@ -0,0 +1,86 @@
+package org.benf.cfr.reader.bytecode;
+
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+/*
+ * Times the passes of a single analysis attempt on the calling thread.  Where a pass runs several
+ * times during one attempt, its figures are summed.
+ *
+ * Allocation figures rely on the (non standard) com.sun.management.ThreadMXBean - this is looked up
+ * reflectively so as not to depend on it.
+ */
+public class PassTimerImpl implements PassTimer {
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final java.lang.reflect.Method getThreadAllocatedBytes = findGetThreadAllocatedBytes();
+
+    private final PassMetrics passMetrics;
+    private final Method method;
+    private final int recoveryPass;
+    private final long threadId = Thread.currentThread().getId();
+    private final Map<String, long[]> totals = MapFactory.newOrderedMap();
+    private long lastNanos;
+    private long lastAllocated;
+
+    public PassTimerImpl(PassMetrics passMetrics, Method method, int recoveryPass) {
+        this.passMetrics = passMetrics;
+        this.method = method;
+        this.recoveryPass = recoveryPass;
+        this.lastAllocated = getAllocated();
+        this.lastNanos = System.nanoTime();
+    }
+
+    private static java.lang.reflect.Method findGetThreadAllocatedBytes() {
+        try {
+            Class<?> sunBean = Class.forName("com.sun.management.ThreadMXBean");
+            if (!sunBean.isInstance(threadBean)) return null;
+            return sunBean.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private long getAllocated() {
+        if (getThreadAllocatedBytes == null) return -1;
+        try {
+            return (Long) getThreadAllocatedBytes.invoke(threadBean, threadId);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void mark(String passName) {
+        long nanos = System.nanoTime();
+        long allocated = getAllocated();
+        long[] total = totals.get(passName);
+        if (total == null) {
+            total = new long[3];
+            totals.put(passName, total);
+        }
+        total[0]++;
+        total[1] += nanos - lastNanos;
+        total[2] = (allocated < 0 || total[2] < 0) ? -1 : total[2] + allocated - lastAllocated;
+        /*
+         * Don't charge our own bookkeeping to the next pass.
+         */
+        lastAllocated = getAllocated();
+        lastNanos = System.nanoTime();
+    }
+
+    @Override
+    public void finish() {
+        mark("(other)");
+        String className = method.getClassFile().getClassType().getRawName();
+        String methodName = method.getName();
+        String descriptor = method.getMethodPrototype().getOriginalDescriptor();
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            long[] total = entry.getValue();
+            passMetrics.add(className, methodName, descriptor, recoveryPass, entry.getKey(), (int) total[0], total[1], total[2]);
+        }
+    }
+}
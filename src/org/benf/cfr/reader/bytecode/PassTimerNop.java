@@ -0,0 +1,16 @@
+package org.benf.cfr.reader.bytecode;
+
+public class PassTimerNop implements PassTimer {
+    public static final PassTimerNop INSTANCE = new PassTimerNop();
+
+    private PassTimerNop() {
+    }
+
+    @Override
+    public void mark(String passName) {
+    }
+
+    @Override
+    public void finish() {
+    }
+}
@@ -0,0 +1,91 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph;
+
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.functors.Predicate;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Iterates a forward dataflow problem over a graph until nothing changes.
+ *
+ * Nodes are numbered in reverse postorder from the entry (anything unreachable from the entry follows,
+ * in list order), and the worklist is a bitset over those numbers.  We always take the lowest pending
+ * node, so (back edges aside) all of a node's sources have been processed before it is - this needs
+ * far fewer visits than working through the nodes in list order.
+ */
+public class GraphDataflow<T extends Graph<T>> {
+    private final List<T> order;
+    private final Map<T, Integer> numbering;
+
+    public GraphDataflow(List<T> nodes) {
+        this.numbering = MapFactory.newIdentityMap();
+        this.order = ListFactory.newList();
+        if (!nodes.isEmpty()) {
+            addReversePostOrder(nodes.get(0));
+        }
+        for (T node : nodes) {
+            if (!numbering.containsKey(node)) {
+                numbering.put(node, order.size());
+                order.add(node);
+            }
+        }
+    }
+
+    /*
+     * Iterative, as methods can be big enough to blow the stack.
+     */
+    private void addReversePostOrder(T entry) {
+        List<T> postOrder = ListFactory.newList();
+        List<T> stack = ListFactory.newList();
+        List<Integer> childIdx = ListFactory.newList();
+        // Mark as seen with a placeholder, and renumber once we know the order.
+        numbering.put(entry, -1);
+        stack.add(entry);
+        childIdx.add(0);
+        while (!stack.isEmpty()) {
+            int top = stack.size() - 1;
+            T node = stack.get(top);
+            int idx = childIdx.get(top);
+            List<T> targets = node.getTargets();
+            if (idx < targets.size()) {
+                childIdx.set(top, idx + 1);
+                T target = targets.get(idx);
+                if (!numbering.containsKey(target)) {
+                    numbering.put(target, -1);
+                    stack.add(target);
+                    childIdx.add(0);
+                }
+                continue;
+            }
+            stack.remove(top);
+            childIdx.remove(top);
+            postOrder.add(node);
+        }
+        for (int x = postOrder.size() - 1; x >= 0; --x) {
+            T node = postOrder.get(x);
+            numbering.put(node, order.size());
+            order.add(node);
+        }
+    }
+
+    /*
+     * transfer should update the node's state from its sources, and return true if that changed it, in
+     * which case its targets will be revisited.
+     */
+    public void solve(Predicate<T> transfer) {
+        BitSet pending = new BitSet(order.size());
+        pending.set(0, order.size());
+        for (int idx = pending.nextSetBit(0); idx >= 0; idx = pending.nextSetBit(0)) {
+            pending.clear(idx);
+            T node = order.get(idx);
+            if (!transfer.test(node)) continue;
+            for (T target : node.getTargets()) {
+                Integer targetIdx = numbering.get(target);
+                if (targetIdx != null) pending.set(targetIdx);
+            }
+        }
+    }
+}
@@ -1,26 +1,26 @@
 package org.benf.cfr.reader.bytecode.analysis.opgraph;
 
-import java.util.LinkedList;
-
 public class InstrIndex implements Comparable<InstrIndex> {
     private final int index;
     //    private final int subindex; // for renumbering, etc.
-    private TempRelatives tempList;
+    private Rel rel;
 
     public InstrIndex(int index) {
         this.index = index;
 //        this.subindex = 0;
-        this.tempList = null;
+        this.rel = null;
     }
 
-    private InstrIndex(int index, TempRelatives tempList) {
-        this.index = index;
-        this.tempList = tempList;
+    private TempRelatives tempList() {
+        return rel == null ? null : rel.list;
     }
 
+    /*
+     * Only used for display - comparison uses labels.
+     */
     private int idx() {
-        if (tempList == null) return 0;
-        return tempList.indexOf(this);
+        if (rel == null) return 0;
+        return rel.list.indexOf(this);
     }
 
     @Override
@@ -33,11 +33,11 @@ public class InstrIndex implements Comparable<InstrIndex> {
     public int compareTo(InstrIndex other) {
         int a = index - other.index;
         if (a != 0) return a;
-        if (tempList != other.tempList) {
+        if (tempList() != other.tempList()) {
             throw new IllegalStateException("Bad templists");
         }
-        a = idx() - other.idx();
-        return a;
+        if (rel == null) return 0;
+        return Long.compare(rel.label, other.rel.label);
     }
 
     // NOTE DELIBERATE USE OF OBJECT HASH AND EQUALS.
@@ -51,23 +51,22 @@ public class InstrIndex implements Comparable<InstrIndex> {
         return super.hashCode();
     }
 
-    private void mkTempList() {
-        if (tempList == null) {
-            tempList = new TempRelatives(this);
+    private TempRelatives mkTempList() {
+        if (rel == null) {
+            new TempRelatives(this);
         }
+        return rel.list;
     }
 
     public InstrIndex justBefore() {
-        mkTempList();
-        InstrIndex res = new InstrIndex(this.index, tempList);
-        tempList.before(this, res);
+        InstrIndex res = new InstrIndex(this.index);
+        mkTempList().before(this, res);
         return res;
     }
 
     public InstrIndex justAfter() {
-        mkTempList();
-        InstrIndex res = new InstrIndex(this.index, tempList);
-        tempList.after(this, res);
+        InstrIndex res = new InstrIndex(this.index);
+        mkTempList().after(this, res);
         return res;
     }
 
@@ -92,25 +91,102 @@ public class InstrIndex implements Comparable<InstrIndex> {
     }
 
 
+    /*
+     * An order maintenance list - each member carries a label which increases along the list, so
+     * comparing two members is just comparing labels.  When there's no room between neighbours for a new
+     * label, we respread the labels of the smallest run following the insertion point which has
+     * room (the first j successors which span more than j^2 labels), which keeps insertion cheap
+     * (amortised) however the list is grown.
+     */
     private static class TempRelatives {
-        private final LinkedList<InstrIndex> rels = new LinkedList<InstrIndex>();
+        private static final long LABEL_LIMIT = 1L << 62;
+
+        // Sentinel - never returned, always labelled 0.
+        private final Rel head = new Rel(this, null, 0);
 
         TempRelatives(InstrIndex start) {
-            rels.add(start);
+            Rel rel = new Rel(this, start, LABEL_LIMIT / 2);
+            head.next = rel;
+            rel.prev = head;
+            start.rel = rel;
         }
 
         public int indexOf(InstrIndex i) {
-            return rels.indexOf(i);
+            int idx = 0;
+            for (Rel rel = head.next; rel != null; rel = rel.next) {
+                if (rel.owner == i) return idx;
+                ++idx;
+            }
+            return -1;
         }
 
         public void before(InstrIndex than, InstrIndex isBefore) {
-            int idx = rels.indexOf(than);
-            rels.add(idx, isBefore);
+            insertAfter(than.rel.prev, isBefore);
+        }
+
+        public void after(InstrIndex than, InstrIndex isAfter) {
+            insertAfter(than.rel, isAfter);
+        }
+
+        private void insertAfter(Rel prev, InstrIndex owner) {
+            if (nextLabel(prev) - prev.label < 2) {
+                relabelFrom(prev);
+            }
+            Rel next = prev.next;
+            long label = prev.label + (nextLabel(prev) - prev.label) / 2;
+            Rel rel = new Rel(this, owner, label);
+            rel.prev = prev;
+            rel.next = next;
+            prev.next = rel;
+            if (next != null) next.prev = rel;
+            owner.rel = rel;
         }
 
-        public void after(InstrIndex than, InstrIndex isBefore) {
-            int idx = rels.indexOf(than);
-            rels.add(idx + 1, isBefore);
+        private static long nextLabel(Rel rel) {
+            return rel.next == null ? LABEL_LIMIT : rel.next.label;
+        }
+
+        private void relabelFrom(Rel base) {
+            long j = 1;
+            Rel last = base.next;
+            while (true) {
+                long span = (last == null ? LABEL_LIMIT : last.label) - base.label;
+                if (span > j * j) {
+                    long step = span / j;
+                    Rel rel = base.next;
+                    for (long k = 1; k < j; ++k) {
+                        rel.label = base.label + step * k;
+                        rel = rel.next;
+                    }
+                    return;
+                }
+                if (last == null) break;
+                last = last.next;
+                ++j;
+            }
+            // Ran out of room at the end - spread the whole list out again.
+            long count = 0;
+            for (Rel rel = head.next; rel != null; rel = rel.next) ++count;
+            long step = LABEL_LIMIT / (count + 1);
+            long label = 0;
+            for (Rel rel = head.next; rel != null; rel = rel.next) {
+                label += step;
+                rel.label = label;
+            }
+        }
+    }
+
+    private static class Rel {
+        private final TempRelatives list;
+        private final InstrIndex owner;
+        private long label;
+        private Rel prev;
+        private Rel next;
+
+        Rel(TempRelatives list, InstrIndex owner, long label) {
+            this.list = list;
+            this.owner = owner;
+            this.label = label;
         }
     }
 }
@@ -17,7 +17,9 @@ import org.benf.cfr.reader.bytecode.analysis.parse.statement.Nop;
 import org.benf.cfr.reader.bytecode.analysis.parse.statement.SwitchStatement;
 import org.benf.cfr.reader.bytecode.analysis.parse.statement.WhileStatement;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockIdentifier;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.BlockIdentifierSet;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.CreationCollector;
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.DenseSSAIdentifiers;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.JumpType;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.LValueAssignmentAndAliasCondenser;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.LValueRewriter;
@@ -70,7 +72,7 @@ public class Op03SimpleStatement implements MutableGraph<Op03SimpleStatement>, D
     //
     // This statement is CONTAINED in the following blocks.
     //
-    private final Set<BlockIdentifier> containedInBlocks = SetFactory.newSet();
+    private final Set<BlockIdentifier> containedInBlocks = new BlockIdentifierSet();
 
     public Op03SimpleStatement(Op02WithProcessedDataAndRefs original, Statement statement) {
         this.containedStatement = statement;
@@ -267,7 +269,7 @@ public class Op03SimpleStatement implements MutableGraph<Op03SimpleStatement>, D
     @Override
     public Set<BlockIdentifier> getBlocksEnded() {
         if (linearlyPrevious == null) return SetFactory.newSet();
-        Set<BlockIdentifier> in = SetFactory.newSet(linearlyPrevious.getBlockIdentifiers());
+        Set<BlockIdentifier> in = new BlockIdentifierSet(linearlyPrevious.getBlockIdentifiers());
         in.removeAll(getBlockIdentifiers());
         Iterator<BlockIdentifier> iterator = in.iterator();
         while (iterator.hasNext()) {
@@ -419,7 +421,7 @@ public class Op03SimpleStatement implements MutableGraph<Op03SimpleStatement>, D
                     }
                 }
                 if (pullOutJump) {
-                    Set<BlockIdentifier> backJumpContainedIn = SetFactory.newSet(containedInBlocks);
+                    Set<BlockIdentifier> backJumpContainedIn = new BlockIdentifierSet(containedInBlocks);
                     backJumpContainedIn.remove(blockIdentifier);
                     Op03SimpleStatement backJump = new Op03SimpleStatement(backJumpContainedIn, new GotoStatement(BytecodeLoc.NONE), blockEnd.index.justBefore());
                     whileEndTarget.replaceSource(this, backJump);
@@ -694,29 +696,40 @@ public class Op03SimpleStatement implements MutableGraph<Op03SimpleStatement>, D
         for (LocalVariable param : params) {
             initialSSAValues.put(param, ssaIdentifierFactory.getIdent(param));
         }
-        SSAIdentifiers<LValue> initialIdents = new SSAIdentifiers<LValue>(initialSSAValues);
+        final SSAIdentifiers<LValue> initialIdents = new SSAIdentifiers<LValue>(initialSSAValues);
 
         for (Op03SimpleStatement statement : statements) {
             statement.collectLocallyMutatedVariables(ssaIdentifierFactory);
         }
 
-        Op03SimpleStatement entry = statements.get(0);
+        final Op03SimpleStatement entry = statements.get(0);
 
-        UniqueSeenQueue<Op03SimpleStatement> toProcess = new UniqueSeenQueue<Op03SimpleStatement>(statements);
-        while (!toProcess.isEmpty()) {
-            Op03SimpleStatement statement = toProcess.removeFirst();
-            SSAIdentifiers<LValue> ssaIdentifiers = statement.ssaIdentifiers;
-            boolean changed = false;
-            if (statement == entry) {
-                if (ssaIdentifiers.mergeWith(initialIdents)) changed = true;
-            }
-            for (Op03SimpleStatement source : statement.getSources()) {
-                if (ssaIdentifiers.mergeWith(source.ssaIdentifiers)) changed = true;
-            }
-            // If anything's changed, we need to check this statements children.
-            if (changed) {
-                toProcess.addAll(statement.getTargets());
+        List<SSAIdentifiers<LValue>> allIdents = ListFactory.newList();
+        allIdents.add(initialIdents);
+        for (Op03SimpleStatement statement : statements) {
+            allIdents.add(statement.ssaIdentifiers);
+        }
+        final Map<SSAIdentifiers<LValue>, DenseSSAIdentifiers<LValue>> dense = DenseSSAIdentifiers.of(allIdents);
+        final DenseSSAIdentifiers<LValue> initialDense = dense.get(initialIdents);
+
+        new GraphDataflow<Op03SimpleStatement>(statements).solve(new Predicate<Op03SimpleStatement>() {
+            @Override
+            public boolean test(Op03SimpleStatement statement) {
+                DenseSSAIdentifiers<LValue> ssaIdentifiers = dense.get(statement.ssaIdentifiers);
+                boolean changed = false;
+                if (statement == entry) {
+                    if (ssaIdentifiers.mergeWith(initialDense)) changed = true;
+                }
+                for (Op03SimpleStatement source : statement.getSources()) {
+                    if (ssaIdentifiers.mergeWith(dense.get(source.ssaIdentifiers))) changed = true;
+                }
+                // If anything's changed, we need to check this statements children.
+                return changed;
             }
+        });
+
+        for (Op03SimpleStatement statement : statements) {
+            dense.get(statement.ssaIdentifiers).writeBack();
         }
     }
 
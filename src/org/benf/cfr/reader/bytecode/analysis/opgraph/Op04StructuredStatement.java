@@ -61,7 +61,7 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
 
     private static Set<BlockIdentifier> blockSet(Collection<BlockIdentifier> in) {
         if (in == null || in.isEmpty()) return EMPTY_BLOCKSET;
-        return SetFactory.newSet(in);
+        return new BlockIdentifierSet(in);
     }
 
     public Op04StructuredStatement(
@@ -764,15 +764,20 @@ public class Op04StructuredStatement implements MutableGraph<Op04StructuredState
         new TypedBooleanTidier().transform(root);
     }
 
+    /*
+     * These are all purely local, so they share one walk.
+     */
     public static void miscKeyholeTransforms(VariableFactory variableFactory, Op04StructuredStatement root) {
-        new NakedNullCaster().transform(root);
-        new LambdaCleaner().transform(root);
-        new TernaryCastCleaner().transform(root);
-        new InvalidBooleanCastCleaner().transform(root);
-        new HexLiteralTidier().transform(root);
-        new ExpressionRewriterTransformer(LiteralRewriter.INSTANCE).transform(root);
-        new InvalidExpressionStatementCleaner(variableFactory).transform(root);
-        new StringIndexOfTidier().transform(root);
+        new FusedStructuredStatementTransformer()
+                .add(new NakedNullCaster())
+                .add(new LambdaCleaner())
+                .add(new TernaryCastCleaner())
+                .add(new InvalidBooleanCastCleaner())
+                .add(new HexLiteralTidier())
+                .add(new ExpressionRewriterTransformer(LiteralRewriter.INSTANCE))
+                .add(new InvalidExpressionStatementCleaner(variableFactory))
+                .add(new StringIndexOfTidier())
+                .transform(root);
     }
 
     public static void tidyObfuscation(Options options, Op04StructuredStatement root) {
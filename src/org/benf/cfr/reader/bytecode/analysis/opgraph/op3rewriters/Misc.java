@@ -2,7 +2,6 @@ package org.benf.cfr.reader.bytecode.analysis.opgraph.op3rewriters;
 
 import org.benf.cfr.reader.bytecode.analysis.opgraph.InstrIndex;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.Op03SimpleStatement;
-import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
 import org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.ExpressionReplacingRewriter;
 import org.benf.cfr.reader.bytecode.analysis.parse.Expression;
 import org.benf.cfr.reader.bytecode.analysis.parse.LValue;
@@ -23,6 +22,7 @@ import org.benf.cfr.reader.util.functors.UnaryFunction;
 import org.benf.cfr.reader.util.graph.GraphVisitor;
 import org.benf.cfr.reader.util.graph.GraphVisitorDFS;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -122,45 +122,34 @@ public class Misc {
     }
 
 
-    private static class GraphVisitorReachableInThese implements BinaryProcedure<Op03SimpleStatement, GraphVisitor<Op03SimpleStatement>> {
-        private final Set<Integer> reachable;
-        private final Map<Op03SimpleStatement, Integer> instrToIdx;
-
-        GraphVisitorReachableInThese(Set<Integer> reachable, Map<Op03SimpleStatement, Integer> instrToIdx) {
-            this.reachable = reachable;
-            this.instrToIdx = instrToIdx;
-        }
-
-        @Override
-        public void call(Op03SimpleStatement node, GraphVisitor<Op03SimpleStatement> graphVisitor) {
-            Integer idx = instrToIdx.get(node);
-            if (idx == null) return;
-            reachable.add(idx);
-            for (Op03SimpleStatement target : node.getTargets()) {
-                graphVisitor.enqueue(target);
-            }
-        }
-    }
-
-
+    /*
+     * This is called repeatedly by the loop, conditional and switch rewriters as they walk the statement list,
+     * so it avoids the general purpose visitor - the range is small, and we only need a bit per statement in it.
+     */
     static int getFarthestReachableInRange(List<Op03SimpleStatement> statements, int start, int afterEnd) {
-        Map<Op03SimpleStatement, Integer> instrToIdx = MapFactory.newMap();
+        Map<Op03SimpleStatement, Integer> instrToIdx = MapFactory.newIdentityMap();
         for (int x = start; x < afterEnd; ++x) {
             Op03SimpleStatement statement = statements.get(x);
-            instrToIdx.put(statement, x);
+            instrToIdx.put(statement, x - start);
         }
 
-        Set<Integer> reachableNodes = SetFactory.newSortedSet();
-        GraphVisitorReachableInThese graphVisitorCallee = new GraphVisitorReachableInThese(reachableNodes, instrToIdx);
-        GraphVisitor<Op03SimpleStatement> visitor = new GraphVisitorDFS<Op03SimpleStatement>(statements.get(start), graphVisitorCallee);
-        visitor.process();
+        BitSet reachableNodes = new BitSet(afterEnd - start);
+        List<Op03SimpleStatement> pending = ListFactory.newList();
+        pending.add(statements.get(start));
+        while (!pending.isEmpty()) {
+            Op03SimpleStatement node = pending.remove(pending.size() - 1);
+            Integer idx = instrToIdx.get(node);
+            if (idx == null || reachableNodes.get(idx)) continue;
+            reachableNodes.set(idx);
+            pending.addAll(node.getTargets());
+        }
 
         final int first = start;
         int last = -1;
         boolean foundLast = false;
 
         for (int x = first; x < afterEnd; ++x) {
-            if (reachableNodes.contains(x) || statements.get(x).isAgreedNop()) {
+            if (reachableNodes.get(x - first) || statements.get(x).isAgreedNop()) {
                 if (foundLast) {
                     // This is 'failure' behaviour.  It will probably trigger a re-sort.
                     // TODO : Handle better.
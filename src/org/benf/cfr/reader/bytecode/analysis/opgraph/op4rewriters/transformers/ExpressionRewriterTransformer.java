@@ -5,7 +5,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.rewriters.ExpressionRewriter;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
 import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
 
-public class ExpressionRewriterTransformer implements StructuredStatementTransformer {
+public class ExpressionRewriterTransformer implements StructuredStatementTransformer, LocalStructuredStatementTransformer {
     private final ExpressionRewriter expressionRewriter;
 
     public ExpressionRewriterTransformer(ExpressionRewriter expressionRewriter) {
@@ -25,4 +25,14 @@ public class ExpressionRewriterTransformer implements StructuredStatementTransfo
         in.transformStructuredChildren(this, scope);
         return in;
     }
+
+    /*
+     * NB: when fused, the rewrite happens after children, rather than before - this is only safe
+     * for rewriters which don't look beyond the statement they're given.
+     */
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
+        in.rewriteExpressions(expressionRewriter);
+        return in;
+    }
 }
@@ -0,0 +1,41 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.opgraph.Op04StructuredStatement;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.util.List;
+
+/*
+ * Applies several local transformers in a single bottom up walk, rather than one walk each.
+ *
+ * Each statement still sees the transformers in the order given, so this gives the same result as
+ * running them one after another.
+ */
+public class FusedStructuredStatementTransformer implements StructuredStatementTransformer {
+    private final List<LocalStructuredStatementTransformer> transformers = ListFactory.newList();
+
+    public FusedStructuredStatementTransformer add(LocalStructuredStatementTransformer transformer) {
+        transformers.add(transformer);
+        return this;
+    }
+
+    public void transform(Op04StructuredStatement root) {
+        StructuredScope structuredScope = new StructuredScope();
+        root.transform(this, structuredScope);
+    }
+
+    @Override
+    public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
+        in.transformStructuredChildren(this, scope);
+        Op04StructuredStatement container = in.getContainer();
+        for (LocalStructuredStatementTransformer transformer : transformers) {
+            StructuredStatement next = transformer.transformLocal(in, scope);
+            // Later transformers expect a replacement to be contained, as it would be between walks.
+            if (next != in && next != null) next.setContainer(container);
+            in = next;
+        }
+        return in;
+    }
+}
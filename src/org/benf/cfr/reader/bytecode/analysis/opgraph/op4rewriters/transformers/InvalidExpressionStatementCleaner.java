@@ -12,7 +12,7 @@ import org.benf.cfr.reader.bytecode.analysis.variables.VariableFactory;
 
 import java.util.Set;
 
-public class InvalidExpressionStatementCleaner extends AbstractExpressionRewriter implements StructuredStatementTransformer {
+public class InvalidExpressionStatementCleaner extends AbstractExpressionRewriter implements StructuredStatementTransformer, LocalStructuredStatementTransformer {
 
     private VariableFactory variableFactory;
 
@@ -28,6 +28,11 @@ public class InvalidExpressionStatementCleaner extends AbstractExpressionRewrite
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         if (in instanceof StructuredExpressionStatement) {
             Expression exp = ((StructuredExpressionStatement) in).getExpression();
             if (!exp.isValidStatement()) {
@@ -0,0 +1,15 @@
+package org.benf.cfr.reader.bytecode.analysis.opgraph.op4rewriters.transformers;
+
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredScope;
+import org.benf.cfr.reader.bytecode.analysis.structured.StructuredStatement;
+
+/*
+ * A transformer whose work on a statement only depends on that statement (its own expressions), not on
+ * its neighbours or children.  These can be run together in one walk - see FusedStructuredStatementTransformer.
+ */
+public interface LocalStructuredStatementTransformer {
+    /*
+     * Transform in, without visiting its structured children.
+     */
+    StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope);
+}
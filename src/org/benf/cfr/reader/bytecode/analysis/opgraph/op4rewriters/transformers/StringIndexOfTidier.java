@@ -17,7 +17,7 @@ import org.benf.cfr.reader.bytecode.analysis.types.TypeConstants;
 
 import java.util.List;
 
-public class StringIndexOfTidier extends AbstractExpressionRewriter implements StructuredStatementTransformer {
+public class StringIndexOfTidier extends AbstractExpressionRewriter implements StructuredStatementTransformer, LocalStructuredStatementTransformer {
 
     public void transform(Op04StructuredStatement root) {
         StructuredScope structuredScope = new StructuredScope();
@@ -27,6 +27,11 @@ public class StringIndexOfTidier extends AbstractExpressionRewriter implements S
     @Override
     public StructuredStatement transform(StructuredStatement in, StructuredScope scope) {
         in.transformStructuredChildren(this, scope);
+        return transformLocal(in, scope);
+    }
+
+    @Override
+    public StructuredStatement transformLocal(StructuredStatement in, StructuredScope scope) {
         in.rewriteExpressions(this);
         return in;
     }
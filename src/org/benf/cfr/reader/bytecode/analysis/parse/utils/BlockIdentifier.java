@@ -13,10 +13,21 @@ public class BlockIdentifier implements Comparable<BlockIdentifier> {
     private BlockType blockType;
     // foreign refs - for spotting non local jumps to this block.
     private int knownForeignReferences = 0;
+    // The factory which numbered this block, if any - block sets use it to get from an index back to the block.
+    private final BlockIdentifierFactory factory;
 
     public BlockIdentifier(int index, BlockType blockType) {
+        this(index, blockType, null);
+    }
+
+    BlockIdentifier(int index, BlockType blockType, BlockIdentifierFactory factory) {
         this.index = index;
         this.blockType = blockType;
+        this.factory = factory;
+    }
+
+    BlockIdentifierFactory getFactory() {
+        return factory;
     }
 
     public BlockType getBlockType() {
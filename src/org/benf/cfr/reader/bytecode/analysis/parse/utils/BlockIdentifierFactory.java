@@ -1,9 +1,20 @@
 package org.benf.cfr.reader.bytecode.analysis.parse.utils;
 
+import org.benf.cfr.reader.util.collections.ListFactory;
+
+import java.util.List;
+
 public class BlockIdentifierFactory {
     int idx = 0;
+    private final List<BlockIdentifier> created = ListFactory.newList();
 
     public BlockIdentifier getNextBlockIdentifier(BlockType blockType) {
-        return new BlockIdentifier(idx++, blockType);
+        BlockIdentifier res = new BlockIdentifier(idx++, blockType, this);
+        created.add(res);
+        return res;
+    }
+
+    BlockIdentifier get(int index) {
+        return created.get(index);
     }
 }
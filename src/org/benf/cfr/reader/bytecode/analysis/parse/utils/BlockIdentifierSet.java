@@ -0,0 +1,232 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.utils;
+
+import org.benf.cfr.reader.util.collections.SetFactory;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ * Statements carry the set of blocks they're in, and these get copied, tested and combined a lot.
+ *
+ * Blocks from the same BlockIdentifierFactory are densely numbered, so we can keep them as a bitset by index -
+ * the factory gets us back from index to block.  Anything from another factory (or none) goes in a plain
+ * set on the side, which in practice stays empty.
+ *
+ * Iterates in index order.
+ */
+public class BlockIdentifierSet extends AbstractSet<BlockIdentifier> {
+    private static final long[] NO_BITS = new long[0];
+
+    private BlockIdentifierFactory universe;
+    private long[] bits = NO_BITS;
+    private int size;
+    private Set<BlockIdentifier> others;
+
+    public BlockIdentifierSet() {
+    }
+
+    public BlockIdentifierSet(Collection<BlockIdentifier> content) {
+        addAll(content);
+    }
+
+    private boolean isLocal(BlockIdentifier b) {
+        if (universe == null && b.getFactory() != null) universe = b.getFactory();
+        return universe != null && b.getFactory() == universe;
+    }
+
+    private boolean hasLocalBit(int index) {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof BlockIdentifier)) return false;
+        BlockIdentifier b = (BlockIdentifier) o;
+        if (universe != null && b.getFactory() == universe) return hasLocalBit(b.getIndex());
+        return others != null && others.contains(b);
+    }
+
+    @Override
+    public boolean add(BlockIdentifier b) {
+        if (!isLocal(b)) {
+            if (others == null) others = SetFactory.newSet();
+            if (!others.add(b)) return false;
+            size++;
+            return true;
+        }
+        int index = b.getIndex();
+        int word = index >>> 6;
+        if (word >= bits.length) bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        long mask = 1L << index;
+        if ((bits[word] & mask) != 0) return false;
+        bits[word] |= mask;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof BlockIdentifier)) return false;
+        BlockIdentifier b = (BlockIdentifier) o;
+        if (universe != null && b.getFactory() == universe) {
+            if (!hasLocalBit(b.getIndex())) return false;
+            bits[b.getIndex() >>> 6] &= ~(1L << b.getIndex());
+            size--;
+            return true;
+        }
+        if (others == null || !others.remove(b)) return false;
+        size--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(bits, 0L);
+        if (others != null) others.clear();
+        size = 0;
+    }
+
+    /*
+     * Word-at-a-time versions of the bulk operations, when both sides are bitsets over the same blocks.
+     */
+    private boolean isCompatible(Collection<?> c) {
+        if (!(c instanceof BlockIdentifierSet)) return false;
+        BlockIdentifierSet other = (BlockIdentifierSet) c;
+        if (other.others != null && !other.others.isEmpty()) return false;
+        if (other.universe == null) return true;
+        if (universe == null) universe = other.universe;
+        return universe == other.universe;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends BlockIdentifier> c) {
+        if (!isCompatible(c)) return super.addAll(c);
+        long[] otherBits = ((BlockIdentifierSet) c).bits;
+        if (otherBits.length > bits.length) bits = Arrays.copyOf(bits, otherBits.length);
+        boolean changed = false;
+        for (int x = 0; x < otherBits.length; ++x) {
+            long before = bits[x];
+            long after = before | otherBits[x];
+            if (after != before) {
+                bits[x] = after;
+                size += Long.bitCount(after) - Long.bitCount(before);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (!isCompatible(c)) return super.containsAll(c);
+        long[] otherBits = ((BlockIdentifierSet) c).bits;
+        for (int x = 0; x < otherBits.length; ++x) {
+            long mine = x < bits.length ? bits[x] : 0L;
+            if ((otherBits[x] & ~mine) != 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (!isCompatible(c)) return super.removeAll(c);
+        long[] otherBits = ((BlockIdentifierSet) c).bits;
+        boolean changed = false;
+        for (int x = 0, len = Math.min(bits.length, otherBits.length); x < len; ++x) {
+            long before = bits[x];
+            long after = before & ~otherBits[x];
+            if (after != before) {
+                bits[x] = after;
+                size -= Long.bitCount(before) - Long.bitCount(after);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (!isCompatible(c) || (others != null && !others.isEmpty())) return super.retainAll(c);
+        long[] otherBits = ((BlockIdentifierSet) c).bits;
+        boolean changed = false;
+        for (int x = 0; x < bits.length; ++x) {
+            long before = bits[x];
+            long after = before & (x < otherBits.length ? otherBits[x] : 0L);
+            if (after != before) {
+                bits[x] = after;
+                size -= Long.bitCount(before) - Long.bitCount(after);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public Iterator<BlockIdentifier> iterator() {
+        return new Iterator<BlockIdentifier>() {
+            private int nextIndex = nextLocal(0);
+            private BlockIdentifier last;
+            // hasNext can start othersIterator while last is still a local, so remember where last came from.
+            private boolean lastFromOthers;
+            private Iterator<BlockIdentifier> othersIterator;
+
+            @Override
+            public boolean hasNext() {
+                if (nextIndex >= 0) return true;
+                return others != null && getOthersIterator().hasNext();
+            }
+
+            @Override
+            public BlockIdentifier next() {
+                if (nextIndex >= 0) {
+                    last = universe.get(nextIndex);
+                    lastFromOthers = false;
+                    nextIndex = nextLocal(nextIndex + 1);
+                    return last;
+                }
+                if (others == null) throw new NoSuchElementException();
+                last = getOthersIterator().next();
+                lastFromOthers = true;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) throw new IllegalStateException();
+                if (lastFromOthers) {
+                    othersIterator.remove();
+                    size--;
+                } else {
+                    BlockIdentifierSet.this.remove(last);
+                }
+                last = null;
+            }
+
+            private Iterator<BlockIdentifier> getOthersIterator() {
+                if (othersIterator == null) othersIterator = others.iterator();
+                return othersIterator;
+            }
+        };
+    }
+
+    private int nextLocal(int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) return -1;
+        long current = bits[word] & (-1L << from);
+        while (true) {
+            if (current != 0) return (word << 6) + Long.numberOfTrailingZeros(current);
+            if (++word >= bits.length) return -1;
+            current = bits[word];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.utils;
+
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * SSAIdentifiers, for the duration of a solve.
+ *
+ * Every key is numbered up front, and each set of identifiers keeps its idents in arrays by that number, so
+ * merging in a source is a walk down two arrays, rather than a hash lookup (or two) per key per visit.
+ * Once the solve is done, writeBack puts the result into the SSAIdentifiers we came from.
+ *
+ * Only merging without a predicate is supported - ie anything fixed here is never replaced on exit.
+ */
+public class DenseSSAIdentifiers<KEYTYPE> {
+    private final SSAIdentifiers<KEYTYPE> identifiers;
+    private final List<KEYTYPE> keys;
+    private final SSAIdent[] onEntry;
+    private final SSAIdent[] onExit;
+    private final BitSet fixedHere = new BitSet();
+
+    private DenseSSAIdentifiers(SSAIdentifiers<KEYTYPE> identifiers, List<KEYTYPE> keys, Map<KEYTYPE, Integer> numbering) {
+        this.identifiers = identifiers;
+        this.keys = keys;
+        this.onEntry = new SSAIdent[keys.size()];
+        this.onExit = new SSAIdent[keys.size()];
+        for (Map.Entry<KEYTYPE, SSAIdent> entry : identifiers.getKnownIdentifiersOnEntry().entrySet()) {
+            onEntry[numbering.get(entry.getKey())] = entry.getValue();
+        }
+        for (Map.Entry<KEYTYPE, SSAIdent> entry : identifiers.getKnownIdentifiersOnExit().entrySet()) {
+            onExit[numbering.get(entry.getKey())] = entry.getValue();
+        }
+        for (KEYTYPE fixed : identifiers.getFixedHere()) {
+            fixedHere.set(numbering.get(fixed));
+        }
+    }
+
+    /*
+     * Number everything mentioned by any of all - the result is keyed by identity.
+     */
+    public static <KEYTYPE> Map<SSAIdentifiers<KEYTYPE>, DenseSSAIdentifiers<KEYTYPE>> of(Collection<SSAIdentifiers<KEYTYPE>> all) {
+        Map<KEYTYPE, Integer> numbering = MapFactory.newOrderedMap();
+        List<KEYTYPE> keys = ListFactory.newList();
+        for (SSAIdentifiers<KEYTYPE> identifiers : all) {
+            number(identifiers.getKnownIdentifiersOnEntry().keySet(), numbering, keys);
+            number(identifiers.getKnownIdentifiersOnExit().keySet(), numbering, keys);
+            number(identifiers.getFixedHere(), numbering, keys);
+        }
+        Map<SSAIdentifiers<KEYTYPE>, DenseSSAIdentifiers<KEYTYPE>> res = MapFactory.newIdentityMap();
+        for (SSAIdentifiers<KEYTYPE> identifiers : all) {
+            if (!res.containsKey(identifiers)) {
+                res.put(identifiers, new DenseSSAIdentifiers<KEYTYPE>(identifiers, keys, numbering));
+            }
+        }
+        return res;
+    }
+
+    private static <KEYTYPE> void number(Collection<KEYTYPE> found, Map<KEYTYPE, Integer> numbering, List<KEYTYPE> keys) {
+        for (KEYTYPE key : found) {
+            if (!numbering.containsKey(key)) {
+                numbering.put(key, keys.size());
+                keys.add(key);
+            }
+        }
+    }
+
+    /*
+     * As SSAIdentifiers.mergeWith(other) - we're being called with the idents of our sources.
+     */
+    public boolean mergeWith(DenseSSAIdentifiers<KEYTYPE> other) {
+        boolean changed = false;
+        SSAIdent[] otherExit = other.onExit;
+        for (int x = 0; x < otherExit.length; ++x) {
+            SSAIdent otherIdent = otherExit[x];
+            if (otherIdent == null) continue;
+            if (registerChange(onEntry, x, otherIdent)) changed = true;
+            if (!fixedHere.get(x) && registerChange(onExit, x, otherIdent)) changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean registerChange(SSAIdent[] known, int idx, SSAIdent otherIdent) {
+        SSAIdent oldIdent = known[idx];
+        if (oldIdent == null) {
+            known[idx] = otherIdent;
+            return true;
+        }
+        SSAIdent newIdent = SSAIdentifiers.merge(oldIdent, otherIdent);
+        if (newIdent.equals(oldIdent)) return false;
+        known[idx] = newIdent;
+        return true;
+    }
+
+    public void writeBack() {
+        for (int x = 0; x < onEntry.length; ++x) {
+            if (onEntry[x] != null) identifiers.setKnownIdentifierOnEntry(keys.get(x), onEntry[x]);
+            if (onExit[x] != null) identifiers.setKnownIdentifierOnExit(keys.get(x), onExit[x]);
+        }
+    }
+}
@@ -2,15 +2,27 @@ package org.benf.cfr.reader.bytecode.analysis.parse.utils;
 
 public class QuotingUtils {
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     /*
-     * Expensive!
+     * This is applied to everything we print if hiding UTF, so leave the (usual) plain
+     * string alone rather than copying it.
      */
     public static String enquoteUTF(String s) {
-        char[] raw = s.toCharArray();
-        StringBuilder stringBuilder = new StringBuilder();
-        for (char c : raw) {
-            if (c < 32 || c > 126) {
-                stringBuilder.append("\\u").append(String.format("%04x", (int) c));
+        int len = s.length();
+        int x = 0;
+        while (x < len && !needsUTFQuote(s.charAt(x))) ++x;
+        if (x == len) return s;
+        StringBuilder stringBuilder = new StringBuilder(len + 16);
+        stringBuilder.append(s, 0, x);
+        for (; x < len; ++x) {
+            char c = s.charAt(x);
+            if (needsUTFQuote(c)) {
+                stringBuilder.append("\\u")
+                        .append(HEX[(c >> 12) & 0xf])
+                        .append(HEX[(c >> 8) & 0xf])
+                        .append(HEX[(c >> 4) & 0xf])
+                        .append(HEX[c & 0xf]);
             } else {
                 stringBuilder.append(c);
             }
@@ -18,6 +30,10 @@ public class QuotingUtils {
         return stringBuilder.toString();
     }
 
+    private static boolean needsUTFQuote(char c) {
+        return c < 32 || c > 126;
+    }
+
     public static String enquoteString(String s) {
         char[] raw = s.toCharArray();
         StringBuilder stringBuilder = new StringBuilder();
@@ -2,54 +2,81 @@ package org.benf.cfr.reader.bytecode.analysis.parse.utils;
 
 import java.util.BitSet;
 
+/*
+ * Immutable.  Idents from an SSAIdentifierFactory are interned in its table, so merges with other idents
+ * from the same factory don't allocate once they've been seen.
+ */
 public class SSAIdent {
     public static SSAIdent poison = new SSAIdent(0, new Object());
 
     private final BitSet val;
     private final Object comparisonType;
+    private final SSAIdentTable table;
 
     public SSAIdent(int idx, Object comparisonType) {
         val = new BitSet();
         val.set(idx);
         this.comparisonType = comparisonType;
+        this.table = null;
     }
 
-    private SSAIdent(BitSet content, Object comparisonType) {
+    SSAIdent(BitSet content, Object comparisonType, SSAIdentTable table) {
         this.val = content;
         this.comparisonType = comparisonType;
+        this.table = table;
     }
 
     public Object getComparisonType() {
         return comparisonType;
     }
 
+    BitSet getVal() {
+        return val;
+    }
+
+    BitSet copyVal() {
+        return (BitSet) val.clone();
+    }
+
     public SSAIdent mergeWith(SSAIdent other) {
+        if (other == this) return this;
         BitSet b1 = val;
         BitSet b2 = other.val;
         if (b1.equals(b2)) return this;
+        if (table != null && table == other.table) {
+            return table.merge(this, other);
+        }
         b1 = (BitSet) b1.clone();
         b1.or(b2);
-        return new SSAIdent(b1, comparisonType);
+        return new SSAIdent(b1, comparisonType, null);
     }
 
+    /*
+     * Strict superset.
+     */
     public boolean isSuperSet(SSAIdent other) {
-        BitSet tmp = (BitSet) val.clone();
-        tmp.or(other.val);
-        // if or-ing it changed cardinality, then it wasn't a superset.
-        if (tmp.cardinality() != val.cardinality()) return false;
-        tmp.xor(other.val);
-        return (tmp.cardinality() > 0);
+        if (other == this) return false;
+        BitSet otherVal = other.val;
+        for (int x = otherVal.nextSetBit(0); x >= 0; x = otherVal.nextSetBit(x + 1)) {
+            if (!val.get(x)) return false;
+        }
+        return val.cardinality() > otherVal.cardinality();
     }
 
     public int card() {
         return val.cardinality();
     }
 
+    /*
+     * Note that comparison type doesn't participate - but interned idents of the same type are equal
+     * iff they're the same object.
+     */
     @Override
     public boolean equals(Object o) {
         if (o == this) return true;
         if (!(o instanceof SSAIdent)) return false;
         SSAIdent other = (SSAIdent) o;
+        if (table != null && table == other.table && comparisonType == other.comparisonType) return false;
         return val.equals(other.val);
     }
 
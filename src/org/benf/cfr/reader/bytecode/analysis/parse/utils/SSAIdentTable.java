@@ -0,0 +1,50 @@
+package org.benf.cfr.reader.bytecode.analysis.parse.utils;
+
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/*
+ * Interns the SSAIdents made by one SSAIdentifierFactory, so that identical sets (of the same comparison type)
+ * are the same object, and merges between two idents only need computing once.
+ *
+ * This is not thread safe - but neither is the analysis which uses it.
+ */
+class SSAIdentTable {
+    private final Map<Object, Map<BitSet, SSAIdent>> interned = MapFactory.newMap();
+    private final Map<SSAIdent, Map<SSAIdent, SSAIdent>> merged = MapFactory.newIdentityMap();
+
+    /*
+     * val must not be modified after this.
+     */
+    SSAIdent intern(BitSet val, Object comparisonType) {
+        Map<BitSet, SSAIdent> byVal = interned.get(comparisonType);
+        if (byVal == null) {
+            byVal = MapFactory.newMap();
+            interned.put(comparisonType, byVal);
+        }
+        SSAIdent res = byVal.get(val);
+        if (res == null) {
+            res = new SSAIdent(val, comparisonType, this);
+            byVal.put(val, res);
+        }
+        return res;
+    }
+
+    SSAIdent merge(SSAIdent a, SSAIdent b) {
+        Map<SSAIdent, SSAIdent> withA = merged.get(a);
+        if (withA == null) {
+            withA = MapFactory.newIdentityMap();
+            merged.put(a, withA);
+        }
+        SSAIdent res = withA.get(b);
+        if (res == null) {
+            BitSet val = a.copyVal();
+            val.or(b.getVal());
+            res = intern(val, a.getComparisonType());
+            withA.put(b, res);
+        }
+        return res;
+    }
+}
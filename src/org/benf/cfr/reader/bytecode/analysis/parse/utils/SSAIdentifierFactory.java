@@ -3,6 +3,7 @@ package org.benf.cfr.reader.bytecode.analysis.parse.utils;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
 
+import java.util.BitSet;
 import java.util.Map;
 
 public class SSAIdentifierFactory<KEYTYPE, CMPTYPE> {
@@ -16,6 +17,7 @@ public class SSAIdentifierFactory<KEYTYPE, CMPTYPE> {
             });
 
     private final UnaryFunction<KEYTYPE, CMPTYPE> typeComparisonFunction;
+    private final SSAIdentTable table = new SSAIdentTable();
 
     public SSAIdentifierFactory(UnaryFunction<KEYTYPE, CMPTYPE> typeComparisonFunction) {
         this.typeComparisonFunction = typeComparisonFunction;
@@ -24,6 +26,8 @@ public class SSAIdentifierFactory<KEYTYPE, CMPTYPE> {
     public SSAIdent getIdent(KEYTYPE lValue) {
         int val = nextIdentFor.get(lValue);
         nextIdentFor.put(lValue, val + 1);
-        return new SSAIdent(val, typeComparisonFunction == null ? null : typeComparisonFunction.invoke(lValue));
+        BitSet content = new BitSet();
+        content.set(val);
+        return table.intern(content, typeComparisonFunction == null ? null : typeComparisonFunction.invoke(lValue));
     }
 }
@@ -56,14 +56,7 @@ public class SSAIdentifiers<KEYTYPE> {
         } else {
             // Merge
             SSAIdent oldIdent = knownIdentifiers.get(lValue);
-            Object k1 = oldIdent.getComparisonType();
-            Object k2 = otherIdent.getComparisonType();
-            SSAIdent newIdent;
-            if (k1 == k2) {
-                newIdent = oldIdent.mergeWith(otherIdent);
-            } else {
-                newIdent = SSAIdent.poison;
-            }
+            SSAIdent newIdent = merge(oldIdent, otherIdent);
 
             if (!newIdent.equals(oldIdent)) {
                 knownIdentifiers.put(lValue, newIdent);
@@ -73,6 +66,15 @@ public class SSAIdentifiers<KEYTYPE> {
         return false;
     }
 
+    static SSAIdent merge(SSAIdent oldIdent, SSAIdent otherIdent) {
+        Object k1 = oldIdent.getComparisonType();
+        Object k2 = otherIdent.getComparisonType();
+        if (k1 == k2) {
+            return oldIdent.mergeWith(otherIdent);
+        }
+        return SSAIdent.poison;
+    }
+
     public void consumeExit(SSAIdentifiers<KEYTYPE> other) {
         consume(other.knownIdentifiersOnExit);
     }
@@ -202,6 +204,10 @@ public class SSAIdentifiers<KEYTYPE> {
         return knownIdentifiersOnExit;
     }
 
+    Map<KEYTYPE, SSAIdent> getKnownIdentifiersOnEntry() {
+        return knownIdentifiersOnEntry;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -29,7 +29,8 @@ public class JavaRefTypeInstance implements JavaTypeInstance {
     private InnerClassInfo innerClassInfo; // info about this class AS AN INNER CLASS.
     //    private final Options options;
     private final DCCommonState dcCommonState; // Shouldn't need this here...
-    private BindingSuperContainer cachedBindingSupers = BindingSuperContainer.POISON;
+    // Lazily filled in - volatile, as types are shared between --threads workers.
+    private volatile BindingSuperContainer cachedBindingSupers = BindingSuperContainer.POISON;
 
     private JavaRefTypeInstance(final String className, DCCommonState dcCommonState) {
         this.innerClassInfo = InnerClassInfo.NOT;
@@ -374,14 +375,16 @@ public class JavaRefTypeInstance implements JavaTypeInstance {
 
     @Override
     public BindingSuperContainer getBindingSupers() {
-        if (cachedBindingSupers != BindingSuperContainer.POISON) return cachedBindingSupers;
+        BindingSuperContainer res = cachedBindingSupers;
+        if (res != BindingSuperContainer.POISON) return res;
         try {
             ClassFile classFile = getClassFile();
-            cachedBindingSupers = classFile == null ? null : classFile.getBindingSupers();
+            res = classFile == null ? null : classFile.getBindingSupers();
         } catch (CannotLoadClassException e) {
-            cachedBindingSupers = null;
+            res = null;
         }
-        return cachedBindingSupers;
+        cachedBindingSupers = res;
+        return res;
     }
 
     @Override
@@ -101,11 +101,12 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     private final ConstantPool constantPool;
     private final Set<AccessFlag> accessFlags;
     private final List<ClassFileField> fields;
-    private Map<String, Map<JavaTypeInstance, ClassFileField>> fieldsByName; // Lazily populated if interrogated.
+    // Lazily populated if interrogated.  Volatile, as library classes may be interrogated by parallel analysis.
+    private volatile Map<String, Map<JavaTypeInstance, ClassFileField>> fieldsByName;
 
     private final List<Method> methods;
     private FakeMethods fakeMethods;
-    private Map<String, List<Method>> methodsByName; // Lazily populated if interrogated.
+    private volatile Map<String, List<Method>> methodsByName; // Lazily populated if interrogated.
     private final boolean isInnerClass;
     private final Map<JavaTypeInstance, Pair<InnerClassAttributeInfo, ClassFile>> innerClassesByTypeInfo; // populated if analysed.
 
@@ -129,7 +130,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
      */
     private boolean hiddenInnerClass;
 
-    private BindingSuperContainer boundSuperClasses;
+    private volatile BindingSuperContainer boundSuperClasses;
 
     private ClassFileDumper dumpHelper;
 
@@ -521,7 +522,11 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
 
     private void ensureFieldsByName() {
         if (fieldsByName == null) {
-            calculateFieldsByName();
+            synchronized (this) {
+                if (fieldsByName == null) {
+                    calculateFieldsByName();
+                }
+            }
         }
     }
 
@@ -554,9 +559,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     }
 
     public ClassFileField getFieldByName(String name, JavaTypeInstance type) throws NoSuchFieldException {
-        if (fieldsByName == null) {
-            calculateFieldsByName();
-        }
+        ensureFieldsByName();
         Map<JavaTypeInstance, ClassFileField> fieldsByType = fieldsByName.get(name);
         if (fieldsByType == null || fieldsByType.isEmpty()) { // can't be empty, but....
             throw new NoSuchFieldException(name);
@@ -573,7 +576,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
         Options options = constantPool.getDCCommonState().getOptions();
         boolean testIllegal = !options.getOption(OptionsImpl.RENAME_ILLEGAL_IDENTS);
         boolean illegal = false;
-        fieldsByName = MapFactory.newMap();
+        Map<String, Map<JavaTypeInstance, ClassFileField>> fieldsByName = MapFactory.newMap();
         if (testIllegal) {
             for (ClassFileField field : fields) {
                 String rawFieldName = field.getRawFieldName();
@@ -617,6 +620,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
         if (illegal) {
             addComment(DecompilerComment.ILLEGAL_IDENTIFIERS);
         }
+        this.fieldsByName = fieldsByName;
     }
 
     public List<ClassFileField> getFields() {
@@ -766,6 +770,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     }
 
     public List<Method> getMethodsByNameOrNull(String name) {
+        Map<String, List<Method>> methodsByName = this.methodsByName;
         if (methodsByName == null) {
             methodsByName = MapFactory.newMap();
             for (Method method : methods) {
@@ -776,6 +781,7 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
                 }
                 list.add(method);
             }
+            this.methodsByName = methodsByName;
         }
         return methodsByName.get(name);
     }
@@ -1294,10 +1300,12 @@ public class ClassFile implements Dumpable, TypeUsageCollectable {
     public BindingSuperContainer getBindingSupers() {
         // Start with the generic version of this type, i.e. if this is Fred<X>
 
-        if (boundSuperClasses == null) {
-            boundSuperClasses = generateBoundSuperClasses();
+        BindingSuperContainer res = boundSuperClasses;
+        if (res == null) {
+            res = generateBoundSuperClasses();
+            boundSuperClasses = res;
         }
-        return boundSuperClasses;
+        return res;
     }
 
     private BindingSuperContainer generateBoundSuperClasses() {
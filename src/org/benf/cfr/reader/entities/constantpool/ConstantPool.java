@@ -5,20 +5,25 @@ import org.benf.cfr.reader.state.ClassCache;
 import org.benf.cfr.reader.state.DCCommonState;
 import org.benf.cfr.reader.util.ConfusedCFRException;
 import org.benf.cfr.reader.util.bytestream.ByteData;
-import org.benf.cfr.reader.util.bytestream.OffsettingByteData;
-import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.output.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Logger;
 
 public class ConstantPool {
     private static final Logger logger = LoggerFactory.create(ConstantPool.class);
 
     private final long length;
-    private final List<ConstantPoolEntry> entries;
+    /*
+     * Entries are only decoded when first asked for - many classes are loaded just to look at their
+     * hierarchy or a few members, and never need most of their pool.
+     * offsets holds the position of each entry in raw, or -1 for the unusable slot after a long / double.
+     */
+    private final ByteData raw;
+    private final int[] offsets;
+    private final AtomicReferenceArray<ConstantPoolEntry> entries;
     private final Options options;
     private final DCCommonState dcCommonState;
     private final ClassCache classCache;
@@ -34,8 +39,10 @@ public class ConstantPool {
         this.options = dcCommonState.getOptions();
         count--;
 
-        RawTmp tmp = processRaw(raw, count);
-        this.entries = tmp.entries;
+        this.raw = raw;
+        this.offsets = new int[count];
+        this.entries = new AtomicReferenceArray<ConstantPoolEntry>(count);
+        RawTmp tmp = processRaw(raw, offsets);
         this.length = tmp.rawLength;
         this.dynamicConstants = tmp.dynamicConstants;
         this.dcCommonState = dcCommonState;
@@ -56,95 +63,110 @@ public class ConstantPool {
     }
 
     private static class RawTmp {
-        final List<ConstantPoolEntry> entries;
         final long rawLength;
         final boolean dynamicConstants;
 
-        RawTmp(List<ConstantPoolEntry> entries, long rawLength, boolean dynamicConstants) {
-            this.entries = entries;
+        RawTmp(long rawLength, boolean dynamicConstants) {
             this.rawLength = rawLength;
             this.dynamicConstants = dynamicConstants;
         }
     }
 
-    private RawTmp processRaw(ByteData raw, int count) {
-        List<ConstantPoolEntry> tgt = ListFactory.newList(count);
-        OffsettingByteData data = raw.getOffsettingOffsetData(0);
+    /*
+     * Just find where each entry is.
+     */
+    private static RawTmp processRaw(ByteData raw, int[] offsets) {
+        int count = offsets.length;
         boolean dynamicConstant = false;
         logger.info("Processing " + count + " constpool entries.");
+        int offset = 0;
         for (int x = 0; x < count; ++x) {
-            ConstantPoolEntry.Type type = ConstantPoolEntry.Type.get(data.getS1At(0));
-            ConstantPoolEntry cpe;
+            ConstantPoolEntry.Type type = ConstantPoolEntry.Type.get(raw.getS1At(offset));
+            offsets[x] = offset;
+            int size;
             switch (type) {
-                case CPT_NameAndType:
-                    cpe = new ConstantPoolEntryNameAndType(this, data);
-                    break;
+                case CPT_Class:
                 case CPT_String:
-                    cpe = new ConstantPoolEntryString(this, data);
+                case CPT_MethodType:
+                case CPT_ModuleInfo:
+                case CPT_PackageInfo:
+                    size = 3;
                     break;
-                case CPT_FieldRef:
-                    cpe = new ConstantPoolEntryFieldRef(this, data);
+                case CPT_MethodHandle:
+                    size = 4;
                     break;
+                case CPT_NameAndType:
+                case CPT_FieldRef:
                 case CPT_MethodRef:
-                    cpe = new ConstantPoolEntryMethodRef(this, data, false);
-                    break;
                 case CPT_InterfaceMethodRef:
-                    cpe = new ConstantPoolEntryMethodRef(this, data, true);
-                    break;
-                case CPT_Class:
-                    cpe = new ConstantPoolEntryClass(this, data);
-                    break;
-                case CPT_Double:
-                    cpe = new ConstantPoolEntryDouble(this, data);
-                    break;
                 case CPT_Float:
-                    cpe = new ConstantPoolEntryFloat(this, data);
-                    break;
-                case CPT_Long:
-                    cpe = new ConstantPoolEntryLong(this, data);
-                    break;
                 case CPT_Integer:
-                    cpe = new ConstantPoolEntryInteger(this, data);
-                    break;
-                case CPT_UTF8:
-                    cpe = new ConstantPoolEntryUTF8(this, data, options);
-                    break;
-                case CPT_MethodHandle:
-                    cpe = new ConstantPoolEntryMethodHandle(this, data);
-                    break;
-                case CPT_MethodType:
-                    cpe = new ConstantPoolEntryMethodType(this, data);
+                case CPT_InvokeDynamic:
+                    size = 5;
                     break;
                 case CPT_DynamicInfo:
-                    cpe = new ConstantPoolEntryDynamicInfo(this, data);
+                    size = 5;
                     dynamicConstant = true;
                     break;
-                case CPT_InvokeDynamic:
-                    cpe = new ConstantPoolEntryInvokeDynamic(this, data);
-                    break;
-                case CPT_ModuleInfo:
-                    cpe = new ConstantPoolEntryModuleInfo(this, data);
+                case CPT_Double:
+                case CPT_Long:
+                    size = 9;
+                    if (x + 1 < count) {
+                        offsets[++x] = -1;
+                    }
                     break;
-                case CPT_PackageInfo:
-                    cpe = new ConstantPoolEntryPackageInfo(this, data);
+                case CPT_UTF8:
+                    size = 3 + raw.getU2At(offset + 1);
                     break;
                 default:
                     throw new ConfusedCFRException("Invalid constant pool entry : " + type);
             }
-            logger.info("" + (x + 1) + " : " + cpe);
-            tgt.add(cpe);
-            switch (type) {
-                case CPT_Double:
-                case CPT_Long:
-                    tgt.add(null);
-                    x++;
-                    break;
-            }
+            offset += size;
+        }
+        return new RawTmp(offset, dynamicConstant);
+    }
 
-            long size = cpe.getRawByteLength();
-            data.advance(size);
+    private ConstantPoolEntry decode(int index, int offset) {
+        ByteData data = raw.getOffsetData(offset);
+        ConstantPoolEntry.Type type = ConstantPoolEntry.Type.get(data.getS1At(0));
+        switch (type) {
+            case CPT_NameAndType:
+                return new ConstantPoolEntryNameAndType(this, data);
+            case CPT_String:
+                return new ConstantPoolEntryString(this, data);
+            case CPT_FieldRef:
+                return new ConstantPoolEntryFieldRef(this, data);
+            case CPT_MethodRef:
+                return new ConstantPoolEntryMethodRef(this, data, false);
+            case CPT_InterfaceMethodRef:
+                return new ConstantPoolEntryMethodRef(this, data, true);
+            case CPT_Class:
+                return new ConstantPoolEntryClass(this, data);
+            case CPT_Double:
+                return new ConstantPoolEntryDouble(this, data);
+            case CPT_Float:
+                return new ConstantPoolEntryFloat(this, data);
+            case CPT_Long:
+                return new ConstantPoolEntryLong(this, data);
+            case CPT_Integer:
+                return new ConstantPoolEntryInteger(this, data);
+            case CPT_UTF8:
+                return new ConstantPoolEntryUTF8(this, index, data, options);
+            case CPT_MethodHandle:
+                return new ConstantPoolEntryMethodHandle(this, data);
+            case CPT_MethodType:
+                return new ConstantPoolEntryMethodType(this, data);
+            case CPT_DynamicInfo:
+                return new ConstantPoolEntryDynamicInfo(this, data);
+            case CPT_InvokeDynamic:
+                return new ConstantPoolEntryInvokeDynamic(this, data);
+            case CPT_ModuleInfo:
+                return new ConstantPoolEntryModuleInfo(this, data);
+            case CPT_PackageInfo:
+                return new ConstantPoolEntryPackageInfo(this, data);
+            default:
+                throw new ConfusedCFRException("Invalid constant pool entry : " + type);
         }
-        return new RawTmp(tgt, data.getOffset(), dynamicConstant);
     }
 
     public long getRawByteLength() {
@@ -154,10 +176,19 @@ public class ConstantPool {
     public ConstantPoolEntry getEntry(int index) {
         if (index == 0) throw new ConfusedCFRException("Attempt to fetch element 0 from constant pool");
         // NB: Constant pool entries are 1 based.
-        if (index > entries.size()) {
-            throw new IndexOutOfBoundsException("Constant pool has " + entries.size() + " entries - attempted to access entry #" + (index-1));
+        if (index > offsets.length) {
+            throw new IndexOutOfBoundsException("Constant pool has " + offsets.length + " entries - attempted to access entry #" + (index-1));
+        }
+        ConstantPoolEntry entry = entries.get(index - 1);
+        if (entry != null) return entry;
+        int offset = offsets[index - 1];
+        if (offset < 0) return null;
+        // If we race another thread decoding, theirs wins - entries cache derived state, so must be unique.
+        entry = decode(index, offset);
+        if (!entries.compareAndSet(index - 1, null, entry)) {
+            entry = entries.get(index - 1);
         }
-        return entries.get(index - 1);
+        return entry;
     }
 
     public ConstantPoolEntryUTF8 getUTF8Entry(int index) {
@@ -7,7 +7,6 @@ import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import org.benf.cfr.reader.util.output.Dumper;
 
 import java.nio.charset.Charset;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class ConstantPoolEntryUTF8 extends AbstractConstantPoolEntry {
     private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
@@ -18,9 +17,11 @@ public class ConstantPoolEntryUTF8 extends AbstractConstantPoolEntry {
     private final int length;
     private final String value;
 
-    private final static AtomicInteger idx = new AtomicInteger();
-
-    public ConstantPoolEntryUTF8(ConstantPool cp, ByteData data, Options options) {
+    /*
+     * index is our (1 based) position in the constant pool - it names hidden long strings, so that the
+     * names don't depend on which order entries happen to be decoded in.
+     */
+    public ConstantPoolEntryUTF8(ConstantPool cp, int index, ByteData data, Options options) {
         super(cp);
         this.length = data.getU2At(OFFSET_OF_LENGTH);
         byte[] bytes = data.getBytesAt(length, OFFSET_OF_DATA);
@@ -62,7 +63,7 @@ public class ConstantPoolEntryUTF8 extends AbstractConstantPoolEntry {
             tmpValue = new String(bytes, UTF8_CHARSET);
         }
         if (tmpValue.length() > 512 && options.getOption(OptionsImpl.HIDE_LONGSTRINGS)) {
-            tmpValue = "longStr" + idx.getAndIncrement() + "[" + tmpValue.substring(0, 10).replace('\r', '_').replace('\n', '_') + "]";
+            tmpValue = "longStr" + index + "[" + tmpValue.substring(0, 10).replace('\r', '_').replace('\n', '_') + "]";
         }
         this.value = tmpValue;
     }
@@ -151,6 +151,8 @@ public class MemberNameResolver {
                                 resolvedName = ClassNameUtils.getTypeFixPrefix(clashByType.getKey()) + methodPrototype.getName();
                             }
                             methodPrototype.setFixedName(resolvedName);
+                            // A reloaded copy wouldn't have the new name.
+                            dcCommonState.retainClassFile(method.getClassFile());
                         }
                     }
                 }
@@ -4,6 +4,7 @@ import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
 import org.benf.cfr.reader.bytecode.analysis.types.TypeConstants;
+import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 
@@ -11,13 +12,17 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+/*
+ * May be shared between analysis threads - creation of types is serialised, so that there is only ever
+ * one instance per name, lookups of names seen are not.
+ */
 public class ClassCache {
 
     private final Map<String, JavaRefTypeInstance> refClassTypeCache = MapFactory.newMap();
     // We want to avoid generating names which collide with classes.
     // This is a nice simple check.
-    private final Set<String> simpleClassNamesSeen = SetFactory.newSet();
-    private final Map<String, String> renamedClasses = MapFactory.newMap();
+    private final Set<String> simpleClassNamesSeen = SetFactory.newConcurrentSet();
+    private final Map<String, String> renamedClasses = MapFactory.newConcurrentMap();
 
     private final DCCommonState dcCommonState;
 
@@ -30,7 +35,7 @@ public class ClassCache {
         add(TypeConstants.ENUM.getRawName(), TypeConstants.ENUM);
     }
 
-    public JavaRefTypeInstance getRefClassFor(String rawClassName) {
+    public synchronized JavaRefTypeInstance getRefClassFor(String rawClassName) {
         /*
          * If the path (or pseudopath) has been renamed because it's a collision,
          * we need to replace with the deduplicated version - otherwise the file
@@ -45,12 +50,26 @@ public class ClassCache {
             originalName = ClassNameUtils.convertFromPath(originalRawClassName);
         }
         if (typeInstance == null) {
-            typeInstance = JavaRefTypeInstance.create(name, dcCommonState);
+            typeInstance = getSharedLibraryType(rawClassName);
+            if (typeInstance == null) {
+                typeInstance = JavaRefTypeInstance.create(name, dcCommonState);
+            }
             add(name, originalName, typeInstance);
         }
         return typeInstance;
     }
 
+    /*
+     * Library types have to be the same instances that the shared library classes use, as types are
+     * frequently compared by identity.
+     */
+    private JavaRefTypeInstance getSharedLibraryType(String rawClassName) {
+        SharedLibraryClasses sharedLibraryClasses = dcCommonState.getSharedLibraryClasses();
+        if (sharedLibraryClasses == null) return null;
+        if (!sharedLibraryClasses.isLibraryClass(rawClassName + ".class")) return null;
+        return sharedLibraryClasses.getClassCache().getRefClassFor(rawClassName);
+    }
+
     private void add(String name, JavaRefTypeInstance typeInstance) {
         add(name, null, typeInstance);
     }
@@ -67,13 +86,21 @@ public class ClassCache {
         return simpleClassNamesSeen.contains(name);
     }
 
-    public Pair<JavaRefTypeInstance, JavaRefTypeInstance> getRefClassForInnerOuterPair(String rawInnerName, String rawOuterName) {
+    public synchronized Pair<JavaRefTypeInstance, JavaRefTypeInstance> getRefClassForInnerOuterPair(String rawInnerName, String rawOuterName) {
         String innerName = ClassNameUtils.convertFromPath(rawInnerName);
         String outerName = ClassNameUtils.convertFromPath(rawOuterName);
         JavaRefTypeInstance inner = refClassTypeCache.get(innerName);
         JavaRefTypeInstance outer = refClassTypeCache.get(outerName);
         if (inner != null && outer != null) return Pair.make(inner, outer);
-        Pair<JavaRefTypeInstance, JavaRefTypeInstance> pair = JavaRefTypeInstance.createKnownInnerOuter(innerName, outerName, outer, dcCommonState);
+        Pair<JavaRefTypeInstance, JavaRefTypeInstance> pair = null;
+        SharedLibraryClasses sharedLibraryClasses = dcCommonState.getSharedLibraryClasses();
+        if (inner == null && sharedLibraryClasses != null
+                && sharedLibraryClasses.isLibraryClass(ClassNameUtils.convertToPath(rawInnerName) + ".class")) {
+            pair = sharedLibraryClasses.getClassCache().getRefClassForInnerOuterPair(rawInnerName, rawOuterName);
+        }
+        if (pair == null) {
+            pair = JavaRefTypeInstance.createKnownInnerOuter(innerName, outerName, outer, dcCommonState);
+        }
         if (inner == null) {
             add(innerName, pair.getFirst());
             inner = pair.getFirst();
@@ -86,8 +113,8 @@ public class ClassCache {
 
     }
 
-    public Collection<JavaRefTypeInstance> getLoadedTypes() {
-        return refClassTypeCache.values();
+    public synchronized Collection<JavaRefTypeInstance> getLoadedTypes() {
+        return ListFactory.newList(refClassTypeCache.values());
     }
 
     String getOriginalName(String typeName) {
@@ -35,7 +35,14 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
     private Map<String, JarSourceEntry> classToPathMap;
     private final Options options;
     private ClassRenamer classRenamer;
-    private ClassFileRelocator classRelocator;
+    private ClassPathIndex classPathIndex;
+    private volatile ClassFileRelocator classRelocator;
+    private final JarFilePool jarFilePool;
+    /*
+     * Explicit jars, if mapped.  A null value means we couldn't map that jar, and fell back to the pool.
+     */
+    private final Map<String, MappedJar> mappedJars = MapFactory.newMap();
+    private final boolean mapJars;
     /*
      * Initialisation info
      */
@@ -50,11 +57,48 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
         }
     }
 
+    /*
+     * Nothing is held open between class loads - we can't rely on whoever we're handed to release us.
+     */
     public ClassFileSourceImpl(Options options) {
+        this(options, false);
+    }
+
+    /*
+     * If holdJarsOpen, up to jarhandlelimit jars are kept open between class loads, and the caller must
+     * releaseOpenFiles when done.
+     */
+    public ClassFileSourceImpl(Options options, boolean holdJarsOpen) {
         this.options = options;
+        this.jarFilePool = new JarFilePool(holdJarsOpen ? options.getOption(OptionsImpl.JAR_HANDLE_LIMIT) : 0);
+        this.mapJars = options.getOption(OptionsImpl.MAP_JARS);
     }
 
-    private byte[] getBytesFromFile(InputStream is, long length) throws IOException {
+    /*
+     * Jars are held open between class loads - this releases them.  We may still be used afterwards.
+     */
+    public void releaseOpenFiles() {
+        jarFilePool.close();
+        synchronized (mappedJars) {
+            mappedJars.clear();
+        }
+    }
+
+    private MappedJar getMappedJar(String jarPath) {
+        synchronized (mappedJars) {
+            if (mappedJars.containsKey(jarPath)) return mappedJars.get(jarPath);
+            MappedJar mappedJar;
+            try {
+                mappedJar = new MappedJar(jarPath);
+            } catch (IOException e) {
+                mappedJar = null;
+            }
+            mappedJars.put(jarPath, mappedJar);
+            return mappedJar;
+        }
+    }
+
+    static byte[] getBytesFromFile(InputStream is, long length) throws IOException {
         // Create the byte array to hold the data
         byte[] bytes = new byte[(int) length];
 
@@ -97,38 +141,54 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
             path = classRenamer.getOriginalClass(path);
         }
 
-        ZipFile zipFile = null;
-
-        try {
-            InputStream is;
-            long length;
-
-            String usePath = classRelocator.correctPath(path);
-            boolean forceJar = jarEntry != null && explicitJars.contains(jarEntry.getPath());
-            File file = forceJar ? null : new File(usePath);
-            byte[] content;
-            if (file != null && file.exists()) {
-                is = new FileInputStream(file);
-                length = file.length();
-                content = getBytesFromFile(is, length);
-            } else if (jarEntry != null) {
-                zipFile = new ZipFile(new File(jarEntry.getPath()), ZipFile.OPEN_READ);
-                if (jarEntry.analysisType == AnalysisType.WAR) {
-                    path = MiscConstants.WAR_PREFIX + path;
+        InputStream is;
+        long length;
+
+        String usePath = classRelocator.correctPath(path);
+        boolean forceJar = jarEntry != null && explicitJars.contains(jarEntry.getPath());
+        File file = forceJar ? null : new File(usePath);
+        byte[] content;
+        if (file != null && file.exists()) {
+            is = new FileInputStream(file);
+            length = file.length();
+            content = getBytesFromFile(is, length);
+        } else if (jarEntry != null) {
+            if (jarEntry.analysisType == AnalysisType.WAR) {
+                path = MiscConstants.WAR_PREFIX + path;
+            }
+            MappedJar mappedJar = mapJars && forceJar ? getMappedJar(jarEntry.getPath()) : null;
+            content = null;
+            if (mappedJar != null) {
+                try {
+                    content = mappedJar.getContent(path);
+                } catch (IOException e) {
+                    // Fall back to ZipFile, which will report it properly if the jar really is broken.
                 }
-                ZipEntry zipEntry = zipFile.getEntry(path);
-                length = zipEntry.getSize();
-                is = zipFile.getInputStream(zipEntry);
-                content = getBytesFromFile(is, length);
-            } else {
-                // Fallback - can we get the bytes using a java9 extractor?
-                content = getInternalContent(inputPath);
             }
-
-            return Pair.make(content, inputPath);
-        } finally {
-            if (zipFile != null) zipFile.close();
+            if (content == null) {
+                content = jarFilePool.getContent(jarEntry.getPath(), path);
+            }
+        } else {
+            // Fallback - can we get the bytes using a java9 extractor?
+            content = getInternalContent(inputPath);
         }
+
+        return Pair.make(content, inputPath);
+    }
+
+    /*
+     * Will this be loaded from the classpath or the JRE, rather than from something we've been asked to analyse?
+     *
+     * This is asked on every class cache miss, so is decided from lookups alone - no filesystem access.  Anything
+     * we can't place (including loose class files) isn't a library class, so won't be shared between inputs.
+     */
+    boolean isLibraryClass(String inputPath) {
+        JarSourceEntry jarEntry = getClassPathClasses().get(inputPath);
+        if (jarEntry != null) return !explicitJars.contains(jarEntry.getPath());
+        // Not on the class path, so only the (9+) JRE could supply it.
+        if (!JrtPresent) return false;
+        int idx = inputPath.lastIndexOf('/');
+        return idx > 0 && packMap.containsKey(inputPath.substring(0, idx).replace('/', '.'));
     }
 
     /*
@@ -244,7 +304,7 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
         return addJarContent(jarPath, AnalysisType.JAR).getClassFiles();
     }
 
-    public JarContent addJarContent(String jarPath, AnalysisType analysisType) {
+    public synchronized JarContent addJarContent(String jarPath, AnalysisType analysisType) {
         // Make sure classpath is scraped first, so we'll overwrite it.
         getClassPathClasses();
 
@@ -303,7 +363,11 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
         }
     }
 
-    private Map<String, JarSourceEntry> getClassPathClasses() {
+    /*
+     * Synchronized, as class content may be requested by several analysis threads at once.  Once populated,
+     * the map is only modified by explicitly adding jars, which happens before analysis starts.
+     */
+    private synchronized Map<String, JarSourceEntry> getClassPathClasses() {
         if (classToPathMap == null) {
             boolean dump = options.getOption(OptionsImpl.DUMP_CLASS_PATH);
 
@@ -324,10 +388,19 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
 
             classRenamer = ClassRenamer.create(options);
 
+            // The index doesn't remember what we'd dump, so skip it if dumping.
+            String indexPath = options.getOption(OptionsImpl.CLASS_PATH_INDEX);
+            if (indexPath != null && !dump) {
+                classPathIndex = new ClassPathIndex(indexPath);
+            }
+
             String[] classPaths = classPath.split("" + File.pathSeparatorChar);
             for (String path : classPaths) {
                 processToClassPath(dump, path);
             }
+            if (classPathIndex != null) {
+                classPathIndex.save();
+            }
             if (dump) {
                 System.out.println(" */");
             }
@@ -381,12 +454,19 @@ public class ClassFileSourceImpl implements ClassFileSource2 {
     }
 
     private void processClassPathFile(File file, String absolutePath, Map<String, JarSourceEntry> classToPathMap, AnalysisType analysisType, boolean dump) {
-        JarContent content = processClassPathFile(file, dump, analysisType);
-        if (content == null) {
-            return;
+        Collection<String> classFiles = classPathIndex == null ? null : classPathIndex.getClassFiles(file);
+        if (classFiles == null) {
+            JarContent content = processClassPathFile(file, dump, analysisType);
+            if (content == null) {
+                return;
+            }
+            classFiles = content.getClassFiles();
+            if (classPathIndex != null) {
+                classPathIndex.putClassFiles(file, classFiles);
+            }
         }
         JarSourceEntry sourceEntry = new JarSourceEntry(analysisType, absolutePath);
-        for (String name : content.getClassFiles()) {
+        for (String name : classFiles) {
             classToPathMap.put(name, sourceEntry);
         }
     }
@@ -0,0 +1,140 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Remembers which classes are in each classpath jar, so that unchanged jars don't need to be opened
+ * and enumerated on every run.  Entries are keyed on absolute path, and only trusted if the jar's size and
+ * modification time are unchanged.
+ *
+ * The index is only a cache - if it's missing, or can't be read or written, we just scan jars as usual.
+ *
+ * Format (UTF-8 text) is a header line, then per jar:
+ *   path
+ *   size mtime count
+ *   (count lines of class file names)
+ */
+class ClassPathIndex {
+    private static final String HEADER = "CFR classpath index 1";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File indexFile;
+    private final Map<String, Entry> entries = MapFactory.newMap();
+    private boolean dirty = false;
+
+    private static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final List<String> classFiles;
+
+        private Entry(long size, long lastModified, List<String> classFiles) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.classFiles = classFiles;
+        }
+    }
+
+    ClassPathIndex(String indexPath) {
+        this.indexFile = new File(indexPath);
+        if (indexFile.exists()) {
+            try {
+                load();
+            } catch (Exception e) {
+                // Corrupt or from another version - start again.
+                entries.clear();
+                dirty = true;
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), UTF8));
+        try {
+            if (!HEADER.equals(reader.readLine())) throw new IOException("Bad index header");
+            String path;
+            while (null != (path = reader.readLine())) {
+                String[] detail = reader.readLine().split(" ");
+                long size = Long.parseLong(detail[0]);
+                long lastModified = Long.parseLong(detail[1]);
+                int count = Integer.parseInt(detail[2]);
+                List<String> classFiles = ListFactory.newList(count);
+                for (int x = 0; x < count; ++x) {
+                    String name = reader.readLine();
+                    if (name == null) throw new IOException("Truncated index");
+                    classFiles.add(name);
+                }
+                entries.put(path, new Entry(size, lastModified, classFiles));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /*
+     * Null if we don't know about this jar, or it has changed since we did.
+     */
+    Collection<String> getClassFiles(File jar) {
+        Entry entry = entries.get(jar.getAbsolutePath());
+        if (entry == null) return null;
+        if (entry.size != jar.length() || entry.lastModified != jar.lastModified()) return null;
+        return entry.classFiles;
+    }
+
+    void putClassFiles(File jar, Collection<String> classFiles) {
+        entries.put(jar.getAbsolutePath(), new Entry(jar.length(), jar.lastModified(), ListFactory.newList(classFiles)));
+        dirty = true;
+    }
+
+    void save() {
+        if (!dirty) return;
+        // Write alongside and rename, so a concurrent reader never sees a partial index.
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), UTF8));
+            try {
+                writer.write(HEADER);
+                writer.write('\n');
+                for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                    String path = mapEntry.getKey();
+                    if (!new File(path).exists()) continue;
+                    Entry entry = mapEntry.getValue();
+                    writer.write(path);
+                    writer.write('\n');
+                    writer.write(entry.size + " " + entry.lastModified + " " + entry.classFiles.size());
+                    writer.write('\n');
+                    for (String classFile : entry.classFiles) {
+                        writer.write(classFile);
+                        writer.write('\n');
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+            if (indexFile.exists() && !indexFile.delete()) return;
+            if (tmp.renameTo(indexFile)) {
+                dirty = false;
+            }
+        } catch (IOException ignore) {
+        } finally {
+            if (tmp.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                tmp.delete();
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.benf.cfr.reader.state;
 import lombok.Getter;
 import org.benf.cfr.reader.apiunreleased.ClassFileSource2;
 import org.benf.cfr.reader.apiunreleased.JarContent;
+import org.benf.cfr.reader.bytecode.PassMetrics;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
 import org.benf.cfr.reader.bytecode.analysis.types.JavaRefTypeInstance;
@@ -20,10 +21,13 @@ import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
 import org.benf.cfr.reader.util.functors.BinaryFunction;
+import org.benf.cfr.reader.util.functors.Predicate;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
 import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -39,20 +43,37 @@ public class DCCommonState {
     @Getter
     private final Options options;
     private final Map<String, ClassFile> classFileCache;
+    /*
+     * Paths of classes which must never be dropped from a lomem cache - shared between derived states.
+     */
+    private final Set<String> retainedPaths;
     @Getter
     private Set<JavaTypeInstance> versionCollisions;
-    private transient LinkedHashSet<String> couldNotLoadClasses = new LinkedHashSet<>();
+    private final Set<String> couldNotLoadClasses = Collections.synchronizedSet(new LinkedHashSet<String>());
     @Getter
     private final ObfuscationMapping obfuscationMapping;
     @Getter
     private final OverloadMethodSetCache overloadMethodSetCache;
     private final Set<JavaTypeInstance> permittedSealed;
+    private final SharedLibraryClasses sharedLibraryClasses;
+    // Null unless pass profiling is enabled.
+    @Getter
+    private final PassMetrics passMetrics;
 
     public DCCommonState(Options options, ClassFileSource2 classFileSource) {
+        this(options, classFileSource, null);
+    }
+
+    /*
+     * If sharedLibraryClasses is given, library classes are taken from there rather than loaded afresh.
+     */
+    public DCCommonState(Options options, ClassFileSource2 classFileSource, SharedLibraryClasses sharedLibraryClasses) {
         this.options = options;
         this.classFileSource = classFileSource;
+        this.sharedLibraryClasses = sharedLibraryClasses;
         this.classCache = new ClassCache(this);
-        this.classFileCache = MapFactory.newExceptionRetainingLazyMap(new UnaryFunction<String, ClassFile>() {
+        this.retainedPaths = SetFactory.newConcurrentSet();
+        this.classFileCache = newClassFileCache(options, retainedPaths, new UnaryFunction<String, ClassFile>() {
             @Override
             public ClassFile invoke(String arg) {
                 return loadClassFileAtPath(arg);
@@ -62,13 +83,15 @@ public class DCCommonState {
         this.obfuscationMapping = NullMapping.INSTANCE;
         this.overloadMethodSetCache = new OverloadMethodSetCache();
         this.permittedSealed = SetFactory.newSet();
+        this.passMetrics = options.getOption(OptionsImpl.PROFILE_PASSES) ? new PassMetrics() : null;
     }
 
     public DCCommonState(DCCommonState dcCommonState, final BinaryFunction<String, DCCommonState, ClassFile> cacheAccess) {
         this.options = dcCommonState.options;
         this.classFileSource = dcCommonState.classFileSource;
         this.classCache = new ClassCache(this);
-        this.classFileCache = MapFactory.newExceptionRetainingLazyMap(new UnaryFunction<String, ClassFile>() {
+        this.retainedPaths = dcCommonState.retainedPaths;
+        this.classFileCache = newClassFileCache(options, retainedPaths, new UnaryFunction<String, ClassFile>() {
             @Override
             public ClassFile invoke(String arg) {
                 return cacheAccess.invoke(arg, DCCommonState.this);
@@ -78,6 +101,8 @@ public class DCCommonState {
         this.obfuscationMapping = dcCommonState.obfuscationMapping;
         this.overloadMethodSetCache = dcCommonState.overloadMethodSetCache;
         this.permittedSealed = dcCommonState.permittedSealed;
+        this.sharedLibraryClasses = dcCommonState.sharedLibraryClasses;
+        this.passMetrics = dcCommonState.passMetrics;
     }
 
     // TODO : If we have any more of these, refactor to a builder!
@@ -85,7 +110,8 @@ public class DCCommonState {
         this.options = dcCommonState.options;
         this.classFileSource = dcCommonState.classFileSource;
         this.classCache = new ClassCache(this);
-        this.classFileCache = MapFactory.newExceptionRetainingLazyMap(new UnaryFunction<String, ClassFile>() {
+        this.retainedPaths = dcCommonState.retainedPaths;
+        this.classFileCache = newClassFileCache(options, retainedPaths, new UnaryFunction<String, ClassFile>() {
             @Override
             public ClassFile invoke(String arg) {
                 return loadClassFileAtPath(arg);
@@ -95,6 +121,47 @@ public class DCCommonState {
         this.obfuscationMapping = mapping;
         this.overloadMethodSetCache = dcCommonState.overloadMethodSetCache;
         this.permittedSealed = dcCommonState.permittedSealed;
+        // Shared classes haven't seen this mapping, so can't be used with it.
+        this.sharedLibraryClasses = mapping == NullMapping.INSTANCE ? dcCommonState.sharedLibraryClasses : null;
+        this.passMetrics = dcCommonState.passMetrics;
+    }
+
+    SharedLibraryClasses getSharedLibraryClasses() {
+        return sharedLibraryClasses;
+    }
+
+    /*
+     * In lomem mode, we don't retain every class we've ever loaded - only recently used classes (and any still
+     * referenced elsewhere) are kept, the rest will be reloaded if required.
+     *
+     * Reloading only gives back what's in the class file, though, so classes we're analysing, and classes which
+     * have been changed since load (eg renamed members), are always kept - see retainClassFile.
+     */
+    private static Map<String, ClassFile> newClassFileCache(Options options, final Set<String> retainedPaths, UnaryFunction<String, ClassFile> loader) {
+        if (options.getOption(OptionsImpl.LOMEM)) {
+            return MapFactory.newBoundedConcurrentExceptionRetainingLazyMap(options.getOption(OptionsImpl.LOMEM_CLASS_CACHE_SIZE), new Predicate<String>() {
+                @Override
+                public boolean test(String in) {
+                    return retainedPaths.contains(in);
+                }
+            }, loader);
+        }
+        return MapFactory.newConcurrentExceptionRetainingLazyMap(loader);
+    }
+
+    private static String getPath(JavaTypeInstance type) {
+        return ClassNameUtils.convertToPath(type.getRawName()) + ".class";
+    }
+
+    /*
+     * classFile has been changed in a way that reloading it wouldn't reproduce, so must never be dropped.
+     */
+    public void retainClassFile(ClassFile classFile) {
+        String path = getPath(classFile.getClassType());
+        if (retainedPaths.add(path)) {
+            // Looking it up (without loading) moves it to the retained set, if it's in the cache.
+            classFileCache.containsKey(path);
+        }
     }
 
     public void setCollisions(Set<JavaTypeInstance> versionCollisions) {
@@ -115,6 +182,14 @@ public class DCCommonState {
     }
 
     public ClassFile loadClassFileAtPath(final String path) {
+        if (sharedLibraryClasses != null && sharedLibraryClasses.isLibraryClass(path)) {
+            try {
+                return sharedLibraryClasses.getClassFile(path);
+            } catch (CannotLoadClassException e) {
+                couldNotLoadClasses.add(path);
+                throw e;
+            }
+        }
         try {
             Pair<byte[], String> content = classFileSource.getClassFileContent(path);
             ByteData data = new BaseByteData(content.getFirst());
@@ -125,6 +200,14 @@ public class DCCommonState {
         }
     }
 
+    public byte[] getClassFileContent(String path) throws CannotLoadClassException {
+        try {
+            return classFileSource.getClassFileContent(path).getFirst();
+        } catch (Exception e) {
+            throw new CannotLoadClassException(path, e);
+        }
+    }
+
     public DecompilerComment renamedTypeComment(String typeName) {
         String originalName = classCache.getOriginalName(typeName);
         if (originalName != null) {
@@ -175,6 +258,8 @@ public class DCCommonState {
 
             // Redundant test as we're defending against a bad implementation.
             if (classPath.toLowerCase().endsWith(".class")) {
+                // We're analysing this - never release it.
+                retainedPaths.add(classPath);
                 res.get(version).add(classCache.getRefClassFor(classPath.substring(0, classPath.length() - 6)));
             }
         }
@@ -195,9 +280,7 @@ public class DCCommonState {
     }
 
     public ClassFile getClassFile(JavaTypeInstance classInfo) throws CannotLoadClassException {
-        String path = classInfo.getRawName();
-        path = ClassNameUtils.convertToPath(path) + ".class";
-        return getClassFile(path);
+        return getClassFile(getPath(classInfo));
     }
 
     public ClassFile getClassFileOrNull(JavaTypeInstance classInfo) {
@@ -0,0 +1,128 @@
+package org.benf.cfr.reader.state;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/*
+ * Keeps recently used jars open, so that we don't re-read the central directory of a jar for every class
+ * we load from it.  Once more than maxOpen jars are open, the least recently used is closed.
+ *
+ * The pool is only locked while a handle is leased or returned - content is read outside the lock (ZipFile
+ * is happy with concurrent readers), so --threads workers don't serialise on each other's reads.  Each handle
+ * is reference counted, so a jar which is evicted while being read is only closed once the last reader is done.
+ */
+class JarFilePool {
+    private final int maxOpen;
+    private final Map<String, Handle> open;
+
+    JarFilePool(final int maxOpen) {
+        this.maxOpen = maxOpen;
+        this.open = new LinkedHashMap<String, Handle>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Handle> eldest) {
+                if (size() <= maxOpen) return false;
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    byte[] getContent(String jarPath, String entryPath) throws IOException {
+        if (maxOpen <= 0) {
+            ZipFile zipFile = openZip(jarPath);
+            try {
+                return getContent(zipFile, jarPath, entryPath);
+            } finally {
+                zipFile.close();
+            }
+        }
+        Handle handle = lease(jarPath);
+        try {
+            return getContent(handle.zipFile, jarPath, entryPath);
+        } finally {
+            release(handle);
+        }
+    }
+
+    private static byte[] getContent(ZipFile zipFile, String jarPath, String entryPath) throws IOException {
+        ZipEntry zipEntry = zipFile.getEntry(entryPath);
+        if (zipEntry == null) {
+            throw new IOException("No such entry " + entryPath + " in " + jarPath);
+        }
+        return ClassFileSourceImpl.getBytesFromFile(zipFile.getInputStream(zipEntry), zipEntry.getSize());
+    }
+
+    private static ZipFile openZip(String jarPath) throws IOException {
+        return new ZipFile(new File(jarPath), ZipFile.OPEN_READ);
+    }
+
+    private Handle lease(String jarPath) throws IOException {
+        synchronized (this) {
+            Handle handle = open.get(jarPath);
+            if (handle != null) {
+                handle.leases++;
+                return handle;
+            }
+        }
+        // Reading the central directory can take a while, so don't hold everyone else up.
+        ZipFile zipFile = openZip(jarPath);
+        synchronized (this) {
+            Handle handle = open.get(jarPath);
+            if (handle == null) {
+                handle = new Handle(zipFile);
+                open.put(jarPath, handle);
+            } else {
+                // Someone else got there first.
+                closeQuietly(zipFile);
+            }
+            handle.leases++;
+            return handle;
+        }
+    }
+
+    private synchronized void release(Handle handle) {
+        handle.leases--;
+        if (handle.evicted && handle.leases == 0) closeQuietly(handle.zipFile);
+    }
+
+    /*
+     * Release all open jars - the pool may still be used afterwards, and will reopen as required.
+     */
+    synchronized void close() {
+        Iterator<Handle> iterator = open.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().evict();
+            iterator.remove();
+        }
+    }
+
+    private static void closeQuietly(ZipFile zipFile) {
+        try {
+            zipFile.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    /*
+     * Only touched while the pool is locked.
+     */
+    private static class Handle {
+        private final ZipFile zipFile;
+        private int leases;
+        private boolean evicted;
+
+        private Handle(ZipFile zipFile) {
+            this.zipFile = zipFile;
+        }
+
+        private void evict() {
+            evicted = true;
+            if (leases == 0) closeQuietly(zipFile);
+        }
+    }
+}
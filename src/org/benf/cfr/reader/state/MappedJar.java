@@ -0,0 +1,176 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.util.collections.MapFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/*
+ * A jar mapped into memory once, with its central directory parsed into a name -> entry number index.
+ *
+ * Stored entries are copied straight out of the mapping, deflated entries are inflated directly into an
+ * array of the final size - neither goes via an InputStream.
+ *
+ * We only handle the common case - anything odd (zip64, encryption, unknown compression, > 2GB) is refused
+ * when the jar is opened, and the caller should fall back to ZipFile.
+ *
+ * Every offset and length read from the jar is checked against the mapping before it's used, so a truncated
+ * or malformed jar fails with an IOException (and the caller falls back) rather than a runtime exception.
+ */
+class MappedJar {
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int EOCD_LEN = 22;
+    private static final int CEN_LEN = 46;
+    private static final int LOC_LEN = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String path;
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> index;
+    private final int[] localOffsets;
+    private final int[] compressedSizes;
+    private final int[] sizes;
+    private final boolean[] deflated;
+
+    MappedJar(String path) throws IOException {
+        this.path = path;
+        RandomAccessFile file = new RandomAccessFile(new File(path), "r");
+        MappedByteBuffer mapped;
+        try {
+            FileChannel channel = file.getChannel();
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("Too large to map " + path);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } finally {
+            // The mapping remains valid after the channel is closed.
+            file.close();
+        }
+        this.buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        int eocd = findEndOfCentralDirectory();
+        int count = u16(eocd + 10);
+        long cenSize = u32(eocd + 12);
+        long cenOffset = u32(eocd + 16);
+        if (count == 0xffff || cenSize == 0xffffffffL || cenOffset == 0xffffffffL) {
+            throw new IOException("Zip64 not supported " + path);
+        }
+
+        this.index = MapFactory.newMap();
+        this.localOffsets = new int[count];
+        this.compressedSizes = new int[count];
+        this.sizes = new int[count];
+        this.deflated = new boolean[count];
+
+        checkRange(cenOffset, cenSize, "central directory");
+        int pos = (int) cenOffset;
+        for (int x = 0; x < count; ++x) {
+            checkRange(pos, CEN_LEN, "central directory");
+            if (buffer.getInt(pos) != CEN_SIG) throw new IOException("Bad central directory " + path);
+            int flags = u16(pos + 8);
+            int method = u16(pos + 10);
+            if ((flags & 1) != 0) throw new IOException("Encrypted entry in " + path);
+            if (method != STORED && method != DEFLATED) throw new IOException("Unsupported compression in " + path);
+            long compressedSize = u32(pos + 20);
+            long size = u32(pos + 24);
+            long localOffset = u32(pos + 42);
+            if (compressedSize >= Integer.MAX_VALUE || size >= Integer.MAX_VALUE || localOffset >= Integer.MAX_VALUE) {
+                throw new IOException("Zip64 not supported " + path);
+            }
+            int nameLen = u16(pos + 28);
+            int extraLen = u16(pos + 30);
+            int commentLen = u16(pos + 32);
+            checkRange(pos, CEN_LEN + nameLen + extraLen + commentLen, "central directory");
+            checkRange(localOffset, LOC_LEN, "local header");
+            byte[] name = new byte[nameLen];
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(pos + CEN_LEN);
+            dup.get(name);
+            index.put(new String(name, UTF8), x);
+            localOffsets[x] = (int) localOffset;
+            compressedSizes[x] = (int) compressedSize;
+            sizes[x] = (int) size;
+            deflated[x] = method == DEFLATED;
+            pos += CEN_LEN + nameLen + extraLen + commentLen;
+        }
+    }
+
+    private int findEndOfCentralDirectory() throws IOException {
+        int limit = buffer.limit();
+        int min = Math.max(0, limit - EOCD_LEN - 0xffff);
+        for (int pos = limit - EOCD_LEN; pos >= min; --pos) {
+            if (buffer.getInt(pos) == EOCD_SIG) return pos;
+        }
+        throw new IOException("Not a zip file " + path);
+    }
+
+    /*
+     * [start, start + length) must lie inside the mapping.
+     */
+    private void checkRange(long start, long length, String what) throws IOException {
+        if (start < 0 || length < 0 || start + length > buffer.limit()) {
+            throw new IOException("Truncated or malformed " + what + " in " + path);
+        }
+    }
+
+    private int u16(int pos) {
+        return buffer.getShort(pos) & 0xffff;
+    }
+
+    private long u32(int pos) {
+        return buffer.getInt(pos) & 0xffffffffL;
+    }
+
+    /*
+     * Returns null if there's no such entry.
+     * Safe to call concurrently - each read works on its own view of the mapping.
+     */
+    byte[] getContent(String entryPath) throws IOException {
+        Integer idx = index.get(entryPath);
+        if (idx == null) return null;
+        int local = localOffsets[idx];
+        if (buffer.getInt(local) != LOC_SIG) throw new IOException("Bad local header for " + entryPath + " in " + path);
+        long dataStart = (long) local + LOC_LEN + u16(local + 26) + u16(local + 28);
+        checkRange(dataStart, deflated[idx] ? compressedSizes[idx] : sizes[idx], "entry " + entryPath);
+
+        ByteBuffer data = buffer.duplicate();
+        data.position((int) dataStart);
+        if (!deflated[idx]) {
+            byte[] res = new byte[sizes[idx]];
+            data.get(res);
+            return res;
+        }
+        // Java 8 can't inflate from a ByteBuffer, so the compressed form is copied out once.
+        byte[] compressed = new byte[compressedSizes[idx]];
+        data.get(compressed);
+        byte[] res = new byte[sizes[idx]];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int offset = 0;
+            while (offset < res.length) {
+                int read = inflater.inflate(res, offset, res.length - offset);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                offset += read;
+            }
+            if (offset < res.length) throw new IOException("Could not completely read " + entryPath + " in " + path);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt entry " + entryPath + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return res;
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Map;
 
 // The cost of retaining all overload information may become large.  Keeping it centrally allows us to flush it if in low
 // memory mode.
+// Shared between analysis threads when decompiling in parallel.
 public class OverloadMethodSetCache {
     private final Map<ClassFile, Map<MethodPrototype, OverloadMethodSet>> content = MapFactory.newLazyMap(new UnaryFunction<ClassFile, Map<MethodPrototype, OverloadMethodSet>>() {
         @Override
@@ -18,11 +19,11 @@ public class OverloadMethodSetCache {
         }
     });
 
-    public OverloadMethodSet get(ClassFile classFile, MethodPrototype methodPrototype) {
+    public synchronized OverloadMethodSet get(ClassFile classFile, MethodPrototype methodPrototype) {
         return content.get(classFile).get(methodPrototype);
     }
 
-    public void set(ClassFile classFile, MethodPrototype methodPrototype, OverloadMethodSet overloadMethodSet) {
+    public synchronized void set(ClassFile classFile, MethodPrototype methodPrototype, OverloadMethodSet overloadMethodSet) {
         content.get(classFile).put(methodPrototype, overloadMethodSet);
     }
 }
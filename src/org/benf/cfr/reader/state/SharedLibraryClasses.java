@@ -0,0 +1,37 @@
+package org.benf.cfr.reader.state;
+
+import org.benf.cfr.reader.entities.ClassFile;
+import org.benf.cfr.reader.util.CannotLoadClassException;
+import org.benf.cfr.reader.util.getopt.Options;
+
+/*
+ * Classes which come from the classpath or the JRE, rather than from anything we've been asked to analyse.
+ *
+ * These are loaded into their own DCCommonState, which outlives the per-input states, so that a run over
+ * many inputs only parses java.lang.String (etc) once.  Library classes are only ever read by analysis,
+ * never decompiled, so sharing them doesn't leak one input's decisions into another.
+ *
+ * Per-input ClassCaches hand out the library's type instances for library classes, as types are compared
+ * by identity.
+ */
+public class SharedLibraryClasses {
+    private final ClassFileSourceImpl classFileSource;
+    private final DCCommonState libraryState;
+
+    public SharedLibraryClasses(Options options, ClassFileSourceImpl classFileSource) {
+        this.classFileSource = classFileSource;
+        this.libraryState = new DCCommonState(options, classFileSource);
+    }
+
+    boolean isLibraryClass(String path) {
+        return classFileSource.isLibraryClass(path);
+    }
+
+    ClassCache getClassCache() {
+        return libraryState.getClassCache();
+    }
+
+    ClassFile getClassFile(String path) throws CannotLoadClassException {
+        return libraryState.getClassFile(path);
+    }
+}
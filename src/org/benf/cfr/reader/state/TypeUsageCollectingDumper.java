@@ -25,6 +25,11 @@ public class TypeUsageCollectingDumper implements Dumper {
     private final Set<JavaRefTypeInstance> refTypeInstanceSet = SetFactory.newSet();
     private final Set<JavaTypeInstance> emitted = SetFactory.newSet();
     private final Set<DetectedStaticImport> staticImports = SetFactory.newSet();
+    /*
+     * Import resolution is asked for by several of the whole class passes, and then again for the real
+     * dump - only redo it if we've seen a new type since.  (Static imports are shared with it, not copied.)
+     */
+    private TypeUsageInformation realTypeUsageInformation;
 
     public void addStaticUsage(JavaRefTypeInstance clazz, String name) {
         staticImports.add(new DetectedStaticImport(clazz, name));
@@ -38,7 +43,10 @@ public class TypeUsageCollectingDumper implements Dumper {
 
     public TypeUsageInformation getRealTypeUsageInformation() {
         /* Figure out what the imports are */
-        return new TypeUsageInformationImpl(options, analysisType, refTypeInstanceSet, staticImports);
+        if (realTypeUsageInformation == null) {
+            realTypeUsageInformation = new TypeUsageInformationImpl(options, analysisType, refTypeInstanceSet, staticImports);
+        }
+        return realTypeUsageInformation;
     }
 
     @Override
@@ -183,7 +191,11 @@ public class TypeUsageCollectingDumper implements Dumper {
     @Override
     public Dumper dump(JavaTypeInstance javaTypeInstance, TypeContext typeContext) {
         if (javaTypeInstance instanceof JavaRefTypeInstance) {
-            refTypeInstanceSet.add((JavaRefTypeInstance)javaTypeInstance);
+            if (refTypeInstanceSet.add((JavaRefTypeInstance)javaTypeInstance)) {
+                realTypeUsageInformation = null;
+            }
+            /* All a plain ref type would do is print its name, which we'd throw away. */
+            return this;
         }
         javaTypeInstance.dumpInto(this, getTypeUsageInformation(), typeContext);
         return this;
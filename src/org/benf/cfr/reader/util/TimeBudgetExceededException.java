@@ -0,0 +1,7 @@
+package org.benf.cfr.reader.util;
+
+public class TimeBudgetExceededException extends RuntimeException {
+    public TimeBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package org.benf.cfr.reader.util.collections;
+
+import org.benf.cfr.reader.util.functors.UnaryFunction;
+
+import java.util.Map;
+
+/*
+ * As LazyExceptionRetainingMap, but safe to query from multiple threads.
+ *
+ * Hits are served from the (concurrent) inner map without locking.  Misses are serialised, so that
+ * the factory is only ever invoked once per key - this matters, as callers rely on the identity of
+ * the result (eg a ClassFile which is subsequently mutated by analysis).
+ *
+ * The factory may recursively query this map - the lock is reentrant.
+ */
+public class ConcurrentLazyExceptionRetainingMap<X, Y> extends LazyExceptionRetainingMap<X, Y> {
+    ConcurrentLazyExceptionRetainingMap(Map<X, Y> inner, UnaryFunction<X, Y> factory) {
+        super(inner, factory);
+    }
+
+    @Override
+    public Y get(Object o) {
+        //noinspection unchecked
+        Y res = getWithout((X) o);
+        if (res != null) return res;
+        synchronized (this) {
+            return super.get(o);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.benf.cfr.reader.util.collections;
 
+import org.benf.cfr.reader.util.functors.Predicate;
 import org.benf.cfr.reader.util.functors.UnaryFunction;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MapFactory {
     public static <X, Y> Map<X, Y> newMap() {
@@ -13,6 +15,10 @@ public class MapFactory {
         return new LinkedHashMap<X, Y>();
     }
 
+    public static <X, Y> Map<X, Y> newConcurrentMap() {
+        return new ConcurrentHashMap<X, Y>();
+    }
+
     public static <X, Y> Map<X, Y> newIdentityMap() {
         return new IdentityHashMap<X, Y>();
     }
@@ -41,4 +47,15 @@ public class MapFactory {
         return new LazyExceptionRetainingMap<X, Y>(MapFactory.<X, Y>newMap(), factory);
     }
 
+    public static <X, Y> Map<X, Y> newConcurrentExceptionRetainingLazyMap(UnaryFunction<X, Y> factory) {
+        return new ConcurrentLazyExceptionRetainingMap<X, Y>(MapFactory.<X, Y>newConcurrentMap(), factory);
+    }
+
+    /*
+     * As above, but only values whose keys satisfy retain, and the maxStrong most recently used others, are
+     * guaranteed to be retained.
+     */
+    public static <X, Y> Map<X, Y> newBoundedConcurrentExceptionRetainingLazyMap(int maxStrong, Predicate<X> retain, UnaryFunction<X, Y> factory) {
+        return new ConcurrentLazyExceptionRetainingMap<X, Y>(new SoftLruMap<X, Y>(maxStrong, retain), factory);
+    }
 }
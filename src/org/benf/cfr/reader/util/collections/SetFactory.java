@@ -1,6 +1,7 @@
 package org.benf.cfr.reader.util.collections;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unused")
 public class SetFactory {
@@ -26,6 +27,10 @@ public class SetFactory {
         return res;
     }
 
+    public static <X> Set<X> newConcurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<X, Boolean>());
+    }
+
     public static <X> Set<X> newIdentitySet() {
         return Collections.newSetFromMap(new IdentityHashMap<X, Boolean>());
     }
@@ -0,0 +1,135 @@
+package org.benf.cfr.reader.util.collections;
+
+import org.benf.cfr.reader.util.functors.Predicate;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * A map which only strongly holds the most recently used maxStrong values - the rest are held softly, and
+ * may be collected (and so vanish from the map) under memory pressure.
+ *
+ * A value which is still reachable from elsewhere can't be collected, so while anyone is using a value,
+ * get will keep returning that same instance.  This makes it suitable as the inner map of a LazyMap
+ * where identity of values matters - a value is only recreated once nobody could tell the difference.
+ *
+ * However, a value may hold state which isn't in whatever it's recreated from (eg renames applied after load).
+ * Values whose keys satisfy retain are never released - they don't count towards maxStrong.  retain may start
+ * to hold for a key after its value is added - it's checked again whenever the value is looked up.
+ *
+ * Safe to use from multiple threads.
+ */
+public class SoftLruMap<X, Y> extends AbstractMap<X, Y> {
+    private final Map<X, Y> strong;
+    private final Map<X, Y> retained = MapFactory.newMap();
+    private final Predicate<X> retain;
+    private final Map<X, SoftEntry<X, Y>> soft = MapFactory.newMap();
+    private final ReferenceQueue<Y> collected = new ReferenceQueue<Y>();
+
+    private static class SoftEntry<X, Y> extends SoftReference<Y> {
+        private final X key;
+
+        private SoftEntry(X key, Y value, ReferenceQueue<Y> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    SoftLruMap(final int maxStrong, Predicate<X> retain) {
+        this.retain = retain;
+        this.strong = new LinkedHashMap<X, Y>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<X, Y> eldest) {
+                return size() > maxStrong;
+            }
+        };
+    }
+
+    /*
+     * Drop entries whose values have been collected.
+     */
+    private void expunge() {
+        Reference<? extends Y> ref;
+        while (null != (ref = collected.poll())) {
+            @SuppressWarnings("unchecked")
+            SoftEntry<X, Y> entry = (SoftEntry<X, Y>) ref;
+            if (soft.get(entry.key) == entry) soft.remove(entry.key);
+        }
+    }
+
+    @Override
+    public synchronized Y get(Object key) {
+        Y value = retained.get(key);
+        if (value != null) return value;
+        SoftEntry<X, Y> entry = soft.get(key);
+        if (entry == null) return null;
+        value = entry.get();
+        if (value != null) {
+            hold(entry.key, value);
+        }
+        return value;
+    }
+
+    private void hold(X key, Y value) {
+        if (retain.test(key)) {
+            strong.remove(key);
+            retained.put(key, value);
+        } else {
+            strong.put(key, value);
+        }
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public synchronized Y put(X key, Y value) {
+        expunge();
+        Y old = get(key);
+        soft.put(key, new SoftEntry<X, Y>(key, value, collected));
+        hold(key, value);
+        return old;
+    }
+
+    @Override
+    public synchronized Y remove(Object key) {
+        Y old = get(key);
+        strong.remove(key);
+        retained.remove(key);
+        soft.remove(key);
+        return old;
+    }
+
+    @Override
+    public synchronized void clear() {
+        strong.clear();
+        retained.clear();
+        soft.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        expunge();
+        return soft.size();
+    }
+
+    /*
+     * A snapshot of the values which are currently live.
+     */
+    @Override
+    public synchronized Set<Map.Entry<X, Y>> entrySet() {
+        Map<X, Y> res = MapFactory.newOrderedMap();
+        for (SoftEntry<X, Y> entry : soft.values()) {
+            Y value = entry.get();
+            if (value != null) res.put(entry.key, value);
+        }
+        return res.entrySet();
+    }
+}
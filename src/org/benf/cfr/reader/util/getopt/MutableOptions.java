@@ -1,23 +1,42 @@
 package org.benf.cfr.reader.util.getopt;
 
-import org.benf.cfr.reader.util.collections.MapFactory;
 import org.benf.cfr.reader.util.Troolean;
 
-import java.util.Map;
-
 public class MutableOptions implements Options {
     private final Options delegate;
 
-    private Map<String, String> overrides = MapFactory.newMap();
+    /*
+     * Overridden values, decoded at override time and indexed by option registration order.
+     * Allocated on first override, as most recovery passes only change a handful of options.
+     */
+    private Object[] overrides;
 
     public MutableOptions(Options delegate) {
         this.delegate = delegate;
     }
 
+    private void put(PermittedOptionProvider.ArgumentParam<?, Void> argument, String value) {
+        int index = argument.getIndex();
+        if (index < 0) {
+            throw new IllegalArgumentException("Can't override unregistered option " + argument.getName());
+        }
+        if (overrides == null) {
+            overrides = new Object[OptionsImpl.getRegisteredCount()];
+        }
+        overrides[index] = argument.getFn().invoke(value, null, this);
+    }
+
+    private Object getOverride(PermittedOptionProvider.ArgumentParam<?, ?> option) {
+        if (overrides == null) return null;
+        int index = option.getIndex();
+        if (index < 0 || index >= overrides.length) return null;
+        return overrides[index];
+    }
+
     public boolean override(PermittedOptionProvider.ArgumentParam<Troolean, Void> argument, Troolean value) {
         Troolean originalValue = delegate.getOption(argument);
         if (originalValue == Troolean.NEITHER) {
-            overrides.put(argument.getName(), value.toString());
+            put(argument, value.toString());
             return true;
         }
         return false;
@@ -26,7 +45,7 @@ public class MutableOptions implements Options {
     public boolean override(PermittedOptionProvider.ArgumentParam<Integer, Void> argument, int value) {
         Integer originalValue = delegate.getOption(argument);
         if (originalValue != value) {
-            overrides.put(argument.getName(), Integer.toString(value));
+            put(argument, Integer.toString(value));
             return true;
         }
         return false;
@@ -35,7 +54,7 @@ public class MutableOptions implements Options {
     public boolean override(PermittedOptionProvider.ArgumentParam<Boolean, Void> argument, boolean value) {
         Boolean originalValue = delegate.getOption(argument);
         if (originalValue != value) {
-            overrides.put(argument.getName(), Boolean.toString(value));
+            put(argument, Boolean.toString(value));
             return true;
         }
         return false;
@@ -43,24 +62,26 @@ public class MutableOptions implements Options {
 
     @Override
     public boolean optionIsSet(PermittedOptionProvider.ArgumentParam<?, ?> option) {
-        if (overrides.containsKey(option.getName())) return true;
+        if (getOverride(option) != null) return true;
         return delegate.optionIsSet(option);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T getOption(PermittedOptionProvider.ArgumentParam<T, Void> option) {
-        String override = overrides.get(option.getName());
+        Object override = getOverride(option);
         if (override != null) {
-            return option.getFn().invoke(override, null, this);
+            return (T) override;
         }
         return delegate.getOption(option);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T, A> T getOption(PermittedOptionProvider.ArgumentParam<T, A> option, A arg) {
-        String override = overrides.get(option.getName());
+        Object override = getOverride(option);
         if (override != null) {
-            return option.getFn().invoke(override, arg, this);
+            return (T) override;
         }
         return delegate.getOption(option, arg);
     }
@@ -11,9 +11,13 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 public class OptionsImpl implements Options {
     private final Map<String, String> opts;
+    private final Object[] decoded;
+
+    private static final Object DECODED_NULL = new Object();
 
     private static class DefaultingIntDecoder implements OptionDecoder<Integer> {
         final Integer defaultValue;
@@ -42,6 +46,36 @@ public class OptionsImpl implements Options {
     }
     private static final OptionDecoder<Integer> default0intDecoder = new DefaultingIntDecoder(0);
 
+    private static class BoundedIntDecoder implements OptionDecoder<Integer> {
+        final Integer defaultValue;
+        final int min;
+        final int max;
+
+        private BoundedIntDecoder(Integer defaultValue, int min, int max) {
+            this.defaultValue = defaultValue;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public Integer invoke(String arg, Void ignore, Options ignore2) {
+            if (arg == null) return defaultValue;
+            int x = Integer.parseInt(arg);
+            if (x < min || x > max) throw new IllegalArgumentException("required " + getRangeDescription());
+            return x;
+        }
+
+        @Override
+        public String getRangeDescription() {
+            return "int " + min + " to " + max;
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return "" + defaultValue;
+        }
+    }
+
     private static class DefaultNullEnumDecoder<EnumType extends Enum<EnumType>> implements OptionDecoder<EnumType> {
         private final Class<EnumType> clazz;
 
@@ -267,6 +301,7 @@ public class OptionsImpl implements Options {
     private static List<PermittedOptionProvider.ArgumentParam<?,?>> all = ListFactory.newList();
     
     private static <T extends PermittedOptionProvider.ArgumentParam<?, ?>> T register(T in) {
+        in.setIndex(all.size());
         all.add(in);
         return in;
     }
@@ -454,12 +489,18 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> OUTPUT_PATH = register(new PermittedOptionProvider.Argument<String>(
             "outputpath", defaultNullStringDecoder,
             "Decompile to files in [directory]"));
+    public static final PermittedOptionProvider.Argument<String> OUTPUT_JAR = register(new PermittedOptionProvider.Argument<String>(
+            "outputjar", defaultNullStringDecoder,
+            "Decompile into a single zip / jar at [path], rather than to files.  Summaries (of all inputs) and other side files are written as entries.  Takes precedence over 'outputdir' and 'outputpath'."));
+    public static final PermittedOptionProvider.Argument<Integer> OUTPUT_JAR_COMPRESSION = register(new PermittedOptionProvider.Argument<Integer>(
+            "outputjarcompression", new BoundedIntDecoder(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION),
+            "Compression level (0-9) for 'outputjar'.  -1 uses the zip default."));
     public static final PermittedOptionProvider.Argument<String> OUTPUT_ENCODING = register(new PermittedOptionProvider.Argument<String>(
             "outputencoding", defaultNullStringDecoder,
             "saving decompiled files with specified encoding [encoding]"));
     public static final PermittedOptionProvider.Argument<Troolean> CLOBBER_FILES = register(new PermittedOptionProvider.Argument<Troolean>(
             "clobber", defaultNeitherTrooleanDecoder,
-            "Overwrite files when using option 'outputpath'"));
+            "Overwrite files when using option 'outputpath' or 'outputjar'"));
     public static final PermittedOptionProvider.Argument<Boolean> SILENT = register(new PermittedOptionProvider.Argument<Boolean>(
             "silent", defaultFalseBooleanDecoder,
             "Don't display state while decompiling"));
@@ -544,6 +585,9 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<String> EXTRA_CLASS_PATH = register(new PermittedOptionProvider.Argument<String>(
             "extraclasspath", defaultNullStringDecoder,
             "additional class path - classes in this classpath will be used if needed."));
+    public static final PermittedOptionProvider.Argument<String> CLASS_PATH_INDEX = register(new PermittedOptionProvider.Argument<String>(
+            "classpathindex", defaultNullStringDecoder,
+            "File to cache the contents of class path jars in - unchanged jars are then not rescanned on later runs."));
     public static final PermittedOptionProvider.Argument<Boolean> PULL_CODE_CASE = register(new PermittedOptionProvider.Argument<Boolean>(
             "pullcodecase", defaultFalseBooleanDecoder,
             "Pull code into case statements agressively"));
@@ -562,6 +606,33 @@ public class OptionsImpl implements Options {
     public static final PermittedOptionProvider.Argument<Boolean> LOMEM = register(new PermittedOptionProvider.Argument<Boolean>(
             "lomem", defaultFalseBooleanDecoder,
             "Be more agressive about uncaching in order to reduce memory footprint"));
+    public static final PermittedOptionProvider.Argument<Integer> LOMEM_CLASS_CACHE_SIZE = register(new PermittedOptionProvider.Argument<Integer>(
+            "lomemclasscache", new DefaultingIntDecoder(256),
+            "In lomem mode, the number of recently used library classes which are always kept loaded.  Others may be discarded under memory pressure, and reloaded if needed.  Classes being analysed, or changed since load, are always kept."));
+    public static final PermittedOptionProvider.Argument<Integer> JAR_HANDLE_LIMIT = register(new PermittedOptionProvider.Argument<Integer>(
+            "jarhandlelimit", new DefaultingIntDecoder(16),
+            "Maximum number of jars to hold open while loading classes (least recently used are closed first).  0 reopens a jar for every class loaded.  Jars are only held open by the driver's own class file source, never by one handed out to API or plugin users."));
+    public static final PermittedOptionProvider.Argument<Boolean> MAP_JARS = register(new PermittedOptionProvider.Argument<Boolean>(
+            "mapjars", defaultFalseBooleanDecoder,
+            "Memory map jars being analysed, rather than reading classes via ZipFile.  Jars which can't be mapped (eg zip64) fall back to ZipFile."));
+    public static final PermittedOptionProvider.Argument<Boolean> SHARE_LIBRARY_CLASSES = register(new PermittedOptionProvider.Argument<Boolean>(
+            "sharelibraryclasses", defaultFalseBooleanDecoder,
+            "When analysing several inputs, load classpath and JRE classes once and share them between inputs, rather than reloading them for each input."));
+    public static final PermittedOptionProvider.Argument<Boolean> INCREMENTAL = register(new PermittedOptionProvider.Argument<Boolean>(
+            "incremental", defaultFalseBooleanDecoder,
+            "When writing a jar to outputdir, skip classes which are unchanged since the last run into that directory, and remove output for classes which have gone.  Assumes one jar per outputdir."));
+    public static final PermittedOptionProvider.Argument<Integer> THREADS = register(new PermittedOptionProvider.Argument<Integer>(
+            "threads", new DefaultingIntDecoder(0),
+            "Number of threads to use when analysing a jar.  0 or 1 analyses on the calling thread.  Output order is unchanged.  (Any custom class file source must be thread safe.)"));
+    public static final PermittedOptionProvider.Argument<Integer> OUTPUT_WRITERS = register(new PermittedOptionProvider.Argument<Integer>(
+            "outputwriters", new DefaultingIntDecoder(0),
+            "Number of background threads writing files to outputdir / outputpath, so analysis isn't held up by disk.  Failures to write are reported in the summary, rather than stopping the run.  0 writes on the analysing thread."));
+    public static final PermittedOptionProvider.Argument<Integer> METHOD_TIME_BUDGET = register(new PermittedOptionProvider.Argument<Integer>(
+            "methodtimebudget", new DefaultingIntDecoder(0),
+            "Maximum time (in milliseconds) to spend analysing a single method, over all recovery passes.  Checked between passes - a method which runs over is reported as having failed to decompile.  0 for no limit."));
+    public static final PermittedOptionProvider.Argument<Boolean> PROFILE_PASSES = register(new PermittedOptionProvider.Argument<Boolean>(
+            "profilepasses", defaultFalseBooleanDecoder,
+            "Record time and allocation for each analysis pass, per method and recovery pass.  Published per jar via the METRICS sink (to stderr from the command line)."));
     public static final PermittedOptionProvider.Argument<String> IMPORT_FILTER = register(new PermittedOptionProvider.Argument<String>(
             "importfilter", defaultNullStringDecoder,
             "Substring regex - import classes only when fqn matches this pattern. (VNegate with !, eg !lang)"));
@@ -578,11 +649,32 @@ public class OptionsImpl implements Options {
 
     public OptionsImpl(Map<String, String> opts) {
         this.opts = new HashMap<String, String>(opts);
+        this.decoded = new Object[all.size()];
+    }
+
+    static int getRegisteredCount() {
+        return all.size();
     }
 
+    /*
+     * Options are immutable once constructed, so each (non parameterised) option is only decoded once.
+     * This is done lazily rather than up front, as some decoders consult other options.
+     * Races are benign - decoding is deterministic, and decoded values are immutable.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T getOption(PermittedOptionProvider.ArgumentParam<T, Void> option) {
-        return option.getFn().invoke(opts.get(option.getName()), null, this);
+        int index = option.getIndex();
+        if (index < 0 || index >= decoded.length) {
+            return option.getFn().invoke(opts.get(option.getName()), null, this);
+        }
+        Object res = decoded[index];
+        if (res == null) {
+            T value = option.getFn().invoke(opts.get(option.getName()), null, this);
+            decoded[index] = value == null ? DECODED_NULL : value;
+            return value;
+        }
+        return res == DECODED_NULL ? null : (T) res;
     }
 
     @Override
@@ -12,6 +12,8 @@ public interface PermittedOptionProvider {
         private final OptionDecoderParam<X, InputType> fn;
         private final String help;
         private final boolean hidden;
+        /* Position in the registered option list, or -1 if not registered. */
+        private int index = -1;
 
         ArgumentParam(String name, OptionDecoderParam<X, InputType> fn, String help) {
             this(name, fn, help, false);
@@ -32,6 +34,14 @@ public interface PermittedOptionProvider {
             return fn;
         }
 
+        int getIndex() {
+            return index;
+        }
+
+        void setIndex(int index) {
+            this.index = index;
+        }
+
         boolean isHidden() {
             return hidden;
         }
@@ -0,0 +1,78 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
+import org.benf.cfr.reader.bytecode.analysis.types.ClassNameUtils;
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.entities.Method;
+import org.benf.cfr.reader.state.TypeUsageInformation;
+import org.benf.cfr.reader.util.getopt.Options;
+
+import java.io.BufferedOutputStream;
+
+/*
+ * Renders a class, and adds it to the output archive when closed.
+ */
+class ArchiveDumper extends StreamDumper {
+    private final ArchiveOutput archive;
+    private final String entryName;
+    private final JavaTypeInstance type;
+    private final SummaryDumper summaryDumper;
+    private final StringBuilder sb = new StringBuilder();
+
+    ArchiveDumper(ArchiveOutput archive, String prefix, JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, IllegalIdentifierDump illegalIdentifierDump) {
+        super(typeUsageInformation, options, illegalIdentifierDump, new MovableDumperContext());
+        this.archive = archive;
+        this.type = type;
+        this.summaryDumper = summaryDumper;
+        this.entryName = mkEntryName(prefix, ClassNameUtils.getPackageAndClassNames(type));
+    }
+
+    /*
+     * Entry names are always '/' separated, and never start with one.  (The multi release prefix does.)
+     */
+    private static String mkEntryName(String prefix, Pair<String, String> names) {
+        StringBuilder res = new StringBuilder();
+        res.append(prefix.startsWith("/") ? prefix.substring(1) : prefix);
+        String packageName = names.getFirst();
+        if (packageName.length() != 0) {
+            res.append(packageName.replace('.', '/')).append('/');
+        }
+        return res.append(names.getSecond()).append(".java").toString();
+    }
+
+    String getEntryName() {
+        return entryName;
+    }
+
+    @Override
+    protected void write(String s) {
+        sb.append(s);
+    }
+
+    @Override
+    protected void write(char c) {
+        sb.append(c);
+    }
+
+    @Override
+    public void close() {
+        if (!archive.addEntry(entryName, sb)) {
+            summaryDumper.notifyError(type, null, "Not written - output archive already contains " + entryName);
+        }
+    }
+
+    @Override
+    public void addSummaryError(Method method, String s) {
+        summaryDumper.notifyError(type, method, s);
+    }
+
+    @Override
+    public Dumper withTypeUsageInformation(TypeUsageInformation innerclassTypeUsageInformation) {
+        return new TypeOverridingDumper(this, innerclassTypeUsageInformation);
+    }
+
+    @Override
+    public BufferedOutputStream getAdditionalOutputStream(String description) {
+        return archive.getEntryStream(entryName + "." + description, type, summaryDumper);
+    }
+}
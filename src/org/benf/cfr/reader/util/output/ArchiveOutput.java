@@ -0,0 +1,156 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/*
+ * A single zip which all output for a run (possibly of several inputs) is written to, rather than a
+ * directory tree of files.
+ *
+ * Entries are written as each class is finished with, so the zip is produced in one sequential pass.
+ * The summaries from every input are gathered, and written as a single entry when we're closed.
+ */
+public class ArchiveOutput {
+    private static final String SUMMARY_ENTRY = "summary.txt";
+    private static final int COPY_CHUNK = 8192;
+
+    private final ZipOutputStream zip;
+    private final Charset charset;
+    private final Set<String> written = SetFactory.newSet();
+    private final StringBuilder summary = new StringBuilder();
+
+    private ArchiveOutput(String path, boolean clobber, int level, Charset charset) {
+        File file = new File(path);
+        // As for outputpath, we don't replace an existing file unless asked to.
+        if (file.exists() && !clobber) {
+            throw new Dumper.CannotCreate("File already exists, and option '" + OptionsImpl.CLOBBER_FILES.getName() + "' not set");
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Couldn't create dir: " + parent);
+        }
+        try {
+            this.zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        } catch (FileNotFoundException e) {
+            throw new Dumper.CannotCreate(e);
+        }
+        this.zip.setLevel(level);
+        this.charset = charset;
+    }
+
+    /*
+     * Null, unless we've been asked to write to an archive.
+     */
+    public static ArchiveOutput create(Options options) {
+        if (!options.optionIsSet(OptionsImpl.OUTPUT_JAR)) return null;
+        // Decode everything before we create the file, so that bad options don't leave an empty archive behind.
+        boolean clobber = options.getOption(OptionsImpl.CLOBBER_FILES).boolValue(false);
+        int level = options.getOption(OptionsImpl.OUTPUT_JAR_COMPRESSION);
+        String encoding = options.getOption(OptionsImpl.OUTPUT_ENCODING);
+        Charset charset;
+        try {
+            charset = encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedOperationException("Specified encoding '" + encoding + "' is not supported");
+        }
+        return new ArchiveOutput(options.getOption(OptionsImpl.OUTPUT_JAR), clobber, level, charset);
+    }
+
+    /*
+     * Returns false (and writes nothing) if there's already an entry of this name - unlike files, entries
+     * can't be overwritten.
+     */
+    synchronized boolean addEntry(String name, CharSequence content) {
+        if (!written.add(name)) return false;
+        try {
+            zip.putNextEntry(new ZipEntry(name));
+            // Don't close this - that would close the zip.
+            Writer writer = new OutputStreamWriter(zip, charset);
+            for (int x = 0, len = content.length(); x < len; x += COPY_CHUNK) {
+                writer.append(content, x, Math.min(len, x + COPY_CHUNK));
+            }
+            writer.flush();
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return true;
+    }
+
+    synchronized boolean addEntry(String name, byte[] content) {
+        if (!written.add(name)) return false;
+        try {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(content);
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return true;
+    }
+
+    /*
+     * A stream which becomes an entry when it's closed.  If there's already an entry of this name, that's
+     * reported against type.
+     */
+    BufferedOutputStream getEntryStream(final String name, final JavaTypeInstance type, final SummaryDumper summaryDumper) {
+        return new BufferedOutputStream(new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                if (!addEntry(name, toByteArray())) {
+                    summaryDumper.notifyError(type, null, "Not written - output archive already contains " + name);
+                }
+            }
+        });
+    }
+
+    /*
+     * Closing this doesn't do anything - the summary is only written when we're closed.
+     */
+    Writer getSummaryWriter() {
+        return new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                synchronized (summary) {
+                    summary.append(cbuf, off, len);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    public synchronized void close() {
+        try {
+            synchronized (summary) {
+                if (summary.length() > 0) {
+                    addEntry(SUMMARY_ENTRY, summary);
+                }
+            }
+            zip.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
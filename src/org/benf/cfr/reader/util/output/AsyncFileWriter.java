@@ -0,0 +1,208 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.util.ConfusedCFRException;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * Writes rendered files on background threads, so that the analysing thread isn't held up by
+ * (possibly remote) disk.
+ *
+ * Each writer has its own bounded queue, and a file always goes to the same writer, so that if the same
+ * file is written twice (case insensitive file systems!) the last write still wins.  When a queue is full,
+ * submit blocks.
+ *
+ * Failures can't be thrown back at the analysing thread, so they're collected, and passed to the summary
+ * dumper of the failing file on the next submit, or at finish.  (Summary dumpers aren't thread safe.)  If there's
+ * no real summary, they go to the exception dumper instead.  A file which failed is forgotten by the incremental
+ * manifest, so it's regenerated next time.
+ */
+class AsyncFileWriter {
+    private static final int PENDING_PER_WRITER = 8;
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final int writerCount;
+    private final ExceptionDumper exceptionDumper;
+    private final Set<String> createdDirs = Collections.synchronizedSet(SetFactory.<String>newSet());
+    private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<Failure>();
+    private List<BlockingQueue<Job>> queues;
+    private List<Thread> writers;
+
+    AsyncFileWriter(int writerCount, ExceptionDumper exceptionDumper) {
+        this.writerCount = writerCount;
+        this.exceptionDumper = exceptionDumper;
+    }
+
+    void submit(String path, String encoding, boolean clobber, StringBuilder content, JavaTypeInstance type, SummaryDumper summaryDumper, IncrementalManifest incrementalManifest) {
+        reportFailures();
+        if (queues == null) start();
+        int idx = (path.toLowerCase().hashCode() & Integer.MAX_VALUE) % writerCount;
+        put(queues.get(idx), new Job(path, encoding, clobber, content, type, summaryDumper, incrementalManifest));
+    }
+
+    /*
+     * Wait for everything submitted so far to be written.  We can be used again afterwards.
+     */
+    void finish() {
+        if (queues != null) {
+            for (BlockingQueue<Job> queue : queues) {
+                put(queue, Job.END);
+            }
+            for (Thread writer : writers) {
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ConfusedCFRException(e);
+                }
+            }
+            queues = null;
+            writers = null;
+        }
+        reportFailures();
+    }
+
+    private void start() {
+        queues = ListFactory.newList();
+        writers = ListFactory.newList();
+        for (int x = 0; x < writerCount; ++x) {
+            final BlockingQueue<Job> queue = new ArrayBlockingQueue<Job>(PENDING_PER_WRITER);
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain(queue);
+                }
+            }, "cfr-writer-" + (x + 1));
+            writer.setDaemon(true);
+            writer.start();
+            queues.add(queue);
+            writers.add(writer);
+        }
+    }
+
+    private static void put(BlockingQueue<Job> queue, Job job) {
+        try {
+            queue.put(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    private void drain(BlockingQueue<Job> queue) {
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == Job.END) return;
+            // Anything escaping would kill this writer, and leave submit / finish blocked on its queue forever.
+            try {
+                write(job);
+            } catch (Throwable t) {
+                failures.add(new Failure(job, t));
+            }
+        }
+    }
+
+    private void write(Job job) throws IOException {
+        File file = new File(job.path);
+        File parent = file.getParentFile();
+        if (parent != null && !createdDirs.contains(parent.getPath())) {
+            if (!parent.exists() && !parent.mkdirs() && !parent.isDirectory()) {
+                throw new IllegalStateException("Couldn't create dir: " + parent);
+            }
+            createdDirs.add(parent.getPath());
+        }
+        if (!job.clobber && file.exists()) {
+            throw new Dumper.CannotCreate("File already exists, and option '" + OptionsImpl.CLOBBER_FILES.getName() + "' not set");
+        }
+        OutputStream stream = new FileOutputStream(file);
+        Writer writer;
+        try {
+            writer = job.encoding == null ? new OutputStreamWriter(stream) : new OutputStreamWriter(stream, job.encoding);
+        } catch (UnsupportedEncodingException e) {
+            stream.close();
+            throw new UnsupportedOperationException("Specified encoding '" + job.encoding + "' is not supported");
+        }
+        try {
+            StringBuilder content = job.content;
+            char[] buffer = new char[COPY_BUFFER_SIZE];
+            for (int x = 0, len = content.length(); x < len; x += buffer.length) {
+                int end = Math.min(len, x + buffer.length);
+                content.getChars(x, end, buffer, 0);
+                writer.write(buffer, 0, end - x);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void reportFailures() {
+        Failure failure;
+        while ((failure = failures.poll()) != null) {
+            Job job = failure.job;
+            if (job.incrementalManifest != null) {
+                job.incrementalManifest.forgetOutputFile(job.path);
+            }
+            if (job.summaryDumper instanceof NopSummaryDumper) {
+                Throwable t = failure.throwable;
+                exceptionDumper.noteException(job.path, "Couldn't write " + job.path, t instanceof Exception ? (Exception) t : new IllegalStateException(t));
+                continue;
+            }
+            String message = failure.throwable.getMessage();
+            if (message == null) message = failure.throwable.toString();
+            job.summaryDumper.notifyError(job.type, null, "Couldn't write " + job.path + " : " + message);
+        }
+    }
+
+    private static class Job {
+        static final Job END = new Job(null, null, false, null, null, null, null);
+
+        private final String path;
+        private final String encoding;
+        private final boolean clobber;
+        private final StringBuilder content;
+        private final JavaTypeInstance type;
+        private final SummaryDumper summaryDumper;
+        private final IncrementalManifest incrementalManifest;
+
+        private Job(String path, String encoding, boolean clobber, StringBuilder content, JavaTypeInstance type, SummaryDumper summaryDumper, IncrementalManifest incrementalManifest) {
+            this.path = path;
+            this.encoding = encoding;
+            this.clobber = clobber;
+            this.content = content;
+            this.type = type;
+            this.summaryDumper = summaryDumper;
+            this.incrementalManifest = incrementalManifest;
+        }
+    }
+
+    private static class Failure {
+        private final Job job;
+        private final Throwable throwable;
+
+        private Failure(Job job, Throwable throwable) {
+            this.job = job;
+            this.throwable = throwable;
+        }
+    }
+}
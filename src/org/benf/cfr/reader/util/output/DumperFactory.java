@@ -17,4 +17,13 @@ public interface DumperFactory {
     ExceptionDumper getExceptionDumper();
 
     DumperFactory getFactoryWithPrefix(String prefix, int version);
+
+    // Only used if pass profiling is enabled.
+    MetricsDumper getMetricsDumper();
+
+    // Called once everything for an input has been dumped - until then, output may be written behind.
+    void finishOutput();
+
+    // Null unless we're writing incrementally.
+    IncrementalManifest getIncrementalManifest();
 }
@@ -20,6 +20,11 @@ public class FileDumper extends StreamDumper {
     private final String path;
     private final BufferedWriter writer;
     private final AtomicInteger truncCount;
+    // If set, we render into pending, and hand it to asyncWriter on close, rather than writing as we go.
+    private final AsyncFileWriter asyncWriter;
+    private final StringBuilder pending;
+    // Null unless writing incrementally.
+    private final IncrementalManifest incrementalManifest;
 
     private static final int MAX_FILE_LEN_MINUS_EXT = 249;
     private static final int TRUNC_PREFIX_LEN = 150;
@@ -41,26 +46,39 @@ public class FileDumper extends StreamDumper {
     }
 
     FileDumper(String dir, boolean clobber, JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, AtomicInteger truncCount, IllegalIdentifierDump illegalIdentifierDump) {
-       this(dir,null,clobber,type,summaryDumper,typeUsageInformation,options,truncCount,illegalIdentifierDump);
+       this(dir,null,clobber,type,summaryDumper,typeUsageInformation,options,truncCount,illegalIdentifierDump,null,null);
     }
 
-    FileDumper(String dir, String encoding, boolean clobber, JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, AtomicInteger truncCount, IllegalIdentifierDump illegalIdentifierDump) {
+    /*
+     * If there's an incremental manifest, files it has recorded are overwritten regardless of clobber.
+     */
+    FileDumper(String dir, String encoding, boolean clobber, JavaTypeInstance type, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, Options options, AtomicInteger truncCount, IllegalIdentifierDump illegalIdentifierDump, AsyncFileWriter asyncWriter, IncrementalManifest incrementalManifest) {
 
         super(typeUsageInformation, options, illegalIdentifierDump, new MovableDumperContext());
         this.truncCount = truncCount;
         this.dir = dir;
         this.encoding = encoding;
-        this.clobber = clobber;
         this.type = type;
         this.summaryDumper = summaryDumper;
+        this.asyncWriter = asyncWriter;
+        this.incrementalManifest = incrementalManifest;
         String fileName = mkFilename(dir, ClassNameUtils.getPackageAndClassNames(type), summaryDumper);
+        this.clobber = clobber || (incrementalManifest != null && incrementalManifest.owns(fileName));
+        if (asyncWriter != null) {
+            // Leave all the file system work to the writer.
+            path = fileName;
+            writer = null;
+            pending = new StringBuilder();
+            return;
+        }
+        pending = null;
         try {
             File file = new File(fileName);
             File parent = file.getParentFile();
             if (!parent.exists() && !parent.mkdirs()) {
                 throw new IllegalStateException("Couldn't create dir: " + parent);
             }
-            if (file.exists() && !clobber) {
+            if (file.exists() && !this.clobber) {
                 throw new CannotCreate("File already exists, and option '" + OptionsImpl.CLOBBER_FILES.getName() + "' not set");
             }
             path = fileName;
@@ -82,6 +100,10 @@ public class FileDumper extends StreamDumper {
 
     @Override
     public void close() {
+        if (asyncWriter != null) {
+            asyncWriter.submit(path, encoding, clobber, pending, type, summaryDumper, incrementalManifest);
+            return;
+        }
         try {
             writer.close();
         } catch (IOException e) {
@@ -91,6 +113,10 @@ public class FileDumper extends StreamDumper {
 
     @Override
     protected void write(String s) {
+        if (pending != null) {
+            pending.append(s);
+            return;
+        }
         try {
             writer.write(s);
         } catch (IOException e) {
@@ -98,6 +124,19 @@ public class FileDumper extends StreamDumper {
         }
     }
 
+    @Override
+    protected void write(char c) {
+        if (pending != null) {
+            pending.append(c);
+            return;
+        }
+        try {
+            writer.write(c);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     String getFileName() {
         return path;
     }
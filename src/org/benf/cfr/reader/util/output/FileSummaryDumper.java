@@ -19,8 +19,16 @@ public class FileSummaryDumper implements SummaryDumper {
     private transient Method lastMethod = null;
 
     public FileSummaryDumper(String dir, Options options, DecompilerCommentSource additional) {
+        this(openSummaryFile(dir), options, additional);
+    }
+
+    FileSummaryDumper(BufferedWriter writer, Options options, DecompilerCommentSource additional) {
         additionalComments = additional;
         this.options = options;
+        this.writer = writer;
+    }
+
+    private static BufferedWriter openSummaryFile(String dir) {
         String fileName = dir + File.separator + "summary.txt";
         try {
             File file = new File(fileName);
@@ -28,7 +36,7 @@ public class FileSummaryDumper implements SummaryDumper {
             if (!parent.exists() && !parent.mkdirs()) {
                 throw new IllegalStateException("Couldn't create dir: " + parent);
             }
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)));
+            return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)));
         } catch (FileNotFoundException e) {
             throw new Dumper.CannotCreate(e);
         }
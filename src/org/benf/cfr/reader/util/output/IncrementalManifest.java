@@ -0,0 +1,289 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.bytecode.analysis.types.JavaTypeInstance;
+import org.benf.cfr.reader.util.CfrVersionInfo;
+import org.benf.cfr.reader.util.ConfusedCFRException;
+import org.benf.cfr.reader.util.collections.ListFactory;
+import org.benf.cfr.reader.util.collections.MapFactory;
+import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.functors.UnaryProcedure;
+import org.benf.cfr.reader.util.getopt.Options;
+import org.benf.cfr.reader.util.getopt.OptionsImpl;
+import org.benf.cfr.reader.util.getopt.PermittedOptionProvider;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Remembers, for each top level class we've written to an output directory, a fingerprint of everything it was
+ * decompiled from (its bytes, its inner classes' bytes, the options, and the CFR version), and the file it was
+ * written to.
+ *
+ * If the fingerprint of a class is unchanged on a later run, its existing output is left alone.  Outputs of
+ * classes which have gone from the jar are removed.
+ *
+ * Note that we don't track classes a class merely refers to - a change to a superclass signature won't cause
+ * a subclass to be regenerated.  One manifest is kept per output directory, so this expects one jar per
+ * output directory.
+ *
+ * Files the manifest has recorded are ours, so they're overwritten when regenerated, whatever the clobber option.
+ *
+ * Unchanged and recorded classes may be noted from analysis worker threads, so everything here is synchronised.
+ */
+public class IncrementalManifest {
+    private static final String MANIFEST_NAME = ".cfr-incremental";
+    private static final String HEADER = "CFR incremental manifest 1";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    /*
+     * These don't change what's written to each file.
+     */
+    private static final Set<String> IGNORED_OPTIONS = SetFactory.newSet(
+            OptionsImpl.OUTPUT_DIR.getName(),
+            OptionsImpl.OUTPUT_PATH.getName(),
+            OptionsImpl.SILENT.getName(),
+            OptionsImpl.CLOBBER_FILES.getName(),
+            OptionsImpl.INCREMENTAL.getName(),
+            OptionsImpl.THREADS.getName(),
+            OptionsImpl.OUTPUT_WRITERS.getName(),
+            OptionsImpl.OUTPUT_JAR_COMPRESSION.getName(),
+            OptionsImpl.JAR_HANDLE_LIMIT.getName(),
+            OptionsImpl.MAP_JARS.getName(),
+            OptionsImpl.CLASS_PATH_INDEX.getName());
+
+    private final String outputDir;
+    // Output files have to be strictly inside this - anything else is never recorded, kept, or deleted.
+    private final File canonicalOutputDir;
+    private final File manifestFile;
+    private final String optionsFingerprint;
+    private final Map<String, Entry> entries = MapFactory.newOrderedMap();
+    private final Set<String> present = SetFactory.newSet();
+    private final Set<String> ownedOutputs = SetFactory.newSet();
+    /*
+     * Output files handed out by the dumper factory, which haven't been recorded yet - keyed by the type they're
+     * for, as the output type, (which may have been renamed by an obfuscation mapping).
+     */
+    private final Map<String, String> pendingOutputFiles = MapFactory.newMap();
+    /*
+     * Told the output file of every class we skip, as if it had been written.
+     */
+    private final UnaryProcedure<String> keptOutputListener;
+
+    private static class Entry {
+        private final String fingerprint;
+        private final String outputFile;
+
+        private Entry(String fingerprint, String outputFile) {
+            this.fingerprint = fingerprint;
+            this.outputFile = outputFile;
+        }
+    }
+
+    IncrementalManifest(String outputDir, Options options, UnaryProcedure<String> keptOutputListener) {
+        this.outputDir = outputDir;
+        this.keptOutputListener = keptOutputListener;
+        this.manifestFile = new File(outputDir, MANIFEST_NAME);
+        this.canonicalOutputDir = getCanonical(new File(outputDir));
+        this.optionsFingerprint = getOptionsFingerprint(options);
+        if (manifestFile.exists()) {
+            try {
+                load();
+            } catch (Exception e) {
+                // Unreadable - everything will be regenerated.
+                entries.clear();
+            }
+        }
+        for (Entry entry : entries.values()) {
+            ownedOutputs.add(entry.outputFile);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getOptionsFingerprint(Options options) {
+        StringBuilder sb = new StringBuilder(CfrVersionInfo.VERSION_INFO);
+        for (PermittedOptionProvider.ArgumentParam<?, ?> arg : OptionsImpl.getFactory().getArguments()) {
+            if (IGNORED_OPTIONS.contains(arg.getName())) continue;
+            if (!options.optionIsSet(arg)) continue;
+            // An explicitly set option never needs its argument to be decoded.
+            Object value = options.getOption((PermittedOptionProvider.ArgumentParam<Object, Object>) arg, null);
+            sb.append('\n').append(arg.getName()).append('=').append(value);
+        }
+        return sb.toString();
+    }
+
+    private void load() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), UTF8));
+        try {
+            if (!HEADER.equals(reader.readLine())) throw new IOException("Bad manifest header");
+            String line;
+            while (null != (line = reader.readLine())) {
+                String[] parts = line.split("\t");
+                if (parts.length != 3) throw new IOException("Bad manifest line");
+                /*
+                 * The manifest could have been edited (or corrupted) - we delete the files it names, so never
+                 * trust one outside the output directory.  Such a class will just be regenerated.
+                 */
+                String outputFile = getRelative(new File(outputDir, parts[2]).getPath());
+                if (outputFile == null || !outputFile.equals(parts[2])) continue;
+                entries.put(parts[0], new Entry(parts[1], outputFile));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String getKey(int version, JavaTypeInstance type) {
+        return version + ":" + type.getRawName();
+    }
+
+    public String getFingerprint(List<byte[]> contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(optionsFingerprint.getBytes(UTF8));
+            for (byte[] content : contents) {
+                digest.update((byte) 0);
+                digest.update(content);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new ConfusedCFRException(e);
+        }
+    }
+
+    /*
+     * Every class in the jar should be noted, whether or not it's analysed, so that we know which outputs
+     * are stale.
+     */
+    public synchronized void notePresent(int version, JavaTypeInstance type) {
+        present.add(getKey(version, type));
+    }
+
+    public synchronized boolean isUnchanged(int version, JavaTypeInstance type, String fingerprint) {
+        Entry entry = entries.get(getKey(version, type));
+        if (entry == null || !entry.fingerprint.equals(fingerprint)) return false;
+        File outputFile = new File(outputDir, entry.outputFile);
+        if (!outputFile.exists()) return false;
+        keptOutputListener.call(outputFile.getPath());
+        return true;
+    }
+
+    private static File getCanonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    /*
+     * Output files are remembered relative to the output directory, so we're not sensitive to the working directory.
+     * Null if it's not strictly inside the output directory (once '..'s and links are resolved), or is the manifest.
+     */
+    private String getRelative(String outputFile) {
+        File file = getCanonical(new File(outputFile));
+        List<String> names = ListFactory.newList();
+        while (file != null && !file.equals(canonicalOutputDir)) {
+            names.add(file.getName());
+            file = file.getParentFile();
+        }
+        if (file == null || names.isEmpty()) return null;
+        StringBuilder sb = new StringBuilder();
+        for (int x = names.size() - 1; x >= 0; --x) {
+            sb.append(names.get(x));
+            if (x > 0) sb.append(File.separatorChar);
+        }
+        String relative = sb.toString();
+        return relative.equals(MANIFEST_NAME) ? null : relative;
+    }
+
+    synchronized void noteOutputFile(int version, JavaTypeInstance outputType, String outputFile) {
+        String relative = getRelative(outputFile);
+        String key = getKey(version, outputType);
+        if (relative == null) {
+            pendingOutputFiles.remove(key);
+        } else {
+            pendingOutputFiles.put(key, relative);
+        }
+    }
+
+    /*
+     * Is outputFile (or a side file of it, eg a line number table) the output of a class we've recorded?
+     */
+    synchronized boolean owns(String outputFile) {
+        String relative = getRelative(outputFile);
+        if (relative == null) return false;
+        if (ownedOutputs.contains(relative)) return true;
+        int idx = relative.lastIndexOf('.');
+        return idx > 0 && ownedOutputs.contains(relative.substring(0, idx));
+    }
+
+    /*
+     * Called once type has been written to the file we were told about for outputType.
+     */
+    public synchronized void record(int version, JavaTypeInstance type, JavaTypeInstance outputType, String fingerprint) {
+        String outputFile = pendingOutputFiles.remove(getKey(version, outputType));
+        if (outputFile == null) return;
+        entries.put(getKey(version, type), new Entry(fingerprint, outputFile));
+        ownedOutputs.add(outputFile);
+    }
+
+    /*
+     * Writing outputFile failed after it was recorded - so don't claim it's up to date.
+     */
+    synchronized void forgetOutputFile(String outputFile) {
+        String relative = getRelative(outputFile);
+        if (relative == null) return;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().outputFile.equals(relative)) iterator.remove();
+        }
+        pendingOutputFiles.values().remove(relative);
+    }
+
+    /*
+     * Remove outputs for classes which have gone, and save.  Failing to save isn't fatal - the next run will just
+     * regenerate more than it needed to - so it's reported to the summary, rather than thrown.
+     */
+    public synchronized void finish(SummaryDumper summaryDumper) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> mapEntry = iterator.next();
+            if (present.contains(mapEntry.getKey())) continue;
+            File stale = new File(outputDir, mapEntry.getValue().outputFile);
+            if (stale.exists() && !stale.delete()) continue;
+            iterator.remove();
+        }
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(manifestFile), UTF8));
+            try {
+                writer.write(HEADER);
+                writer.write('\n');
+                for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                    Entry entry = mapEntry.getValue();
+                    writer.write(mapEntry.getKey() + "\t" + entry.fingerprint + "\t" + entry.outputFile + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            summaryDumper.notify("Couldn't save incremental manifest " + manifestFile + " : " + e.getMessage());
+        }
+    }
+}
@@ -7,11 +7,13 @@ import org.benf.cfr.reader.state.TypeUsageInformation;
 import org.benf.cfr.reader.util.*;
 import org.benf.cfr.reader.util.collections.ListFactory;
 import org.benf.cfr.reader.util.collections.SetFactory;
+import org.benf.cfr.reader.util.functors.UnaryProcedure;
 import org.benf.cfr.reader.util.getopt.Options;
 import org.benf.cfr.reader.util.getopt.OptionsImpl;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.Collection;
@@ -23,34 +25,76 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class InternalDumperFactoryImpl implements DumperFactory {
     private final boolean checkDupes;
     private final Set<String> seen = SetFactory.newSet();
-    private boolean seenCaseDupe = false;
+    private volatile boolean seenCaseDupe = false;
     private final Options options;
     private final ProgressDumper progressDumper;
     private final String prefix;
+    private final int version;
     private final AtomicInteger truncCount = new AtomicInteger();
+    private final IncrementalManifest incrementalManifest;
+    private final MetricsDumper metricsDumper;
+    // Null unless files are being written behind.
+    private final AsyncFileWriter asyncWriter;
+    // If set, this takes all output, rather than outputdir / outputpath.  We don't own it.
+    private final ArchiveOutput archive;
 
     public InternalDumperFactoryImpl(Options options) {
+        this(options, null);
+    }
+
+    public InternalDumperFactoryImpl(Options options, ArchiveOutput archive) {
+        this.archive = archive;
         this.checkDupes = OsInfo.OS().isCaseInsensitive() && !options.getOption(OptionsImpl.CASE_INSENSITIVE_FS_RENAME);
         this.options = options;
-        if (!options.getOption(OptionsImpl.SILENT) && (options.optionIsSet(OptionsImpl.OUTPUT_DIR) || options.optionIsSet(OptionsImpl.OUTPUT_PATH))) {
+        if (!options.getOption(OptionsImpl.SILENT) && (archive != null || options.optionIsSet(OptionsImpl.OUTPUT_DIR) || options.optionIsSet(OptionsImpl.OUTPUT_PATH))) {
             progressDumper = new ProgressDumperStdErr();
         } else {
             progressDumper = ProgressDumperNop.INSTANCE;
         }
         this.prefix = "";
+        this.version = 0;
+        if (archive == null && options.getOption(OptionsImpl.INCREMENTAL) && options.optionIsSet(OptionsImpl.OUTPUT_DIR)) {
+            // Files we skip still count towards case clashes, exactly as if we'd written them.
+            this.incrementalManifest = new IncrementalManifest(options.getOption(OptionsImpl.OUTPUT_DIR), options, new UnaryProcedure<String>() {
+                @Override
+                public void call(String outputFile) {
+                    noteOutputName(outputFile);
+                }
+            });
+        } else {
+            this.incrementalManifest = null;
+        }
+        this.metricsDumper = new StdErrMetricsDumper();
+        int writers = options.getOption(OptionsImpl.OUTPUT_WRITERS);
+        this.asyncWriter = writers > 0 ? new AsyncFileWriter(writers, getExceptionDumper()) : null;
     }
 
-    private InternalDumperFactoryImpl(InternalDumperFactoryImpl other, String prefix) {
+    private InternalDumperFactoryImpl(InternalDumperFactoryImpl other, String prefix, int version) {
         this.checkDupes = other.checkDupes;
         this.seenCaseDupe = other.seenCaseDupe;
         this.options = other.options;
         this.progressDumper = other.progressDumper;
         this.prefix = prefix;
+        this.version = version;
+        this.incrementalManifest = other.incrementalManifest;
+        this.metricsDumper = other.metricsDumper;
+        this.asyncWriter = other.asyncWriter;
+        this.archive = other.archive;
     }
 
     @Override
     public DumperFactory getFactoryWithPrefix(String prefix, int version) {
-        return new InternalDumperFactoryImpl(this, prefix);
+        return new InternalDumperFactoryImpl(this, prefix, version);
+    }
+
+    /*
+     * Unchanged files are noted from analysis worker threads, hence synchronised.
+     */
+    private synchronized void noteOutputName(String name) {
+        if (!checkDupes) return;
+        if (!seen.add(new File(name).getPath().toLowerCase())) {
+            seenCaseDupe = true;
+        }
     }
 
     private Pair<String, Boolean> getPathAndClobber() {
@@ -66,17 +110,22 @@ public class InternalDumperFactoryImpl implements DumperFactory {
 
 
     public Dumper getNewTopLevelDumper(JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
+        if (archive != null) {
+            ArchiveDumper res = new ArchiveDumper(archive, prefix, classType, summaryDumper, typeUsageInformation, options, illegalIdentifierDump);
+            noteOutputName(res.getEntryName());
+            return res;
+        }
+
         Pair<String, Boolean> targetInfo = getPathAndClobber();
 
         if (targetInfo == null) return new StdIODumper(typeUsageInformation, options, illegalIdentifierDump, new MovableDumperContext());
 
         String encoding = options.getOption(OptionsImpl.OUTPUT_ENCODING);
-        FileDumper res = new FileDumper(targetInfo.getFirst() + prefix ,encoding ,targetInfo.getSecond(), classType, summaryDumper, typeUsageInformation, options, truncCount, illegalIdentifierDump);
+        FileDumper res = new FileDumper(targetInfo.getFirst() + prefix ,encoding ,targetInfo.getSecond(), classType, summaryDumper, typeUsageInformation, options, truncCount, illegalIdentifierDump, asyncWriter, incrementalManifest);
 
-        if (checkDupes) {
-            if (!seen.add(res.getFileName().toLowerCase())) {
-                seenCaseDupe = true;
-            }
+        noteOutputName(res.getFileName());
+        if (incrementalManifest != null) {
+            incrementalManifest.noteOutputFile(version, classType, res.getFileName());
         }
         return res;
     }
@@ -122,6 +171,13 @@ public class InternalDumperFactoryImpl implements DumperFactory {
         return dumper;
     }
 
+    @Override
+    public void finishOutput() {
+        if (asyncWriter != null) {
+            asyncWriter.finish();
+        }
+    }
+
     @Override
     public ExceptionDumper getExceptionDumper() {
         return new StdErrExceptionDumper();
@@ -143,6 +199,10 @@ public class InternalDumperFactoryImpl implements DumperFactory {
      * A summary dumper will receive errors.  Generally, it's only of value when dumping jars to file.
      */
     public SummaryDumper getSummaryDumper() {
+        if (archive != null) {
+            return new FileSummaryDumper(new BufferedWriter(archive.getSummaryWriter()), options, new AdditionalComments());
+        }
+
         Pair<String, Boolean> targetInfo = getPathAndClobber();
 
         if (targetInfo == null) return new NopSummaryDumper();
@@ -150,8 +210,18 @@ public class InternalDumperFactoryImpl implements DumperFactory {
         return new FileSummaryDumper(targetInfo.getFirst(), options, new AdditionalComments());
     }
 
+    @Override
+    public IncrementalManifest getIncrementalManifest() {
+        return incrementalManifest;
+    }
+
     @Override
     public ProgressDumper getProgressDumper() {
         return progressDumper;
     }
+
+    @Override
+    public MetricsDumper getMetricsDumper() {
+        return metricsDumper;
+    }
 }
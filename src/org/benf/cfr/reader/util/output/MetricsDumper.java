@@ -0,0 +1,9 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.api.SinkReturns;
+
+import java.util.List;
+
+public interface MetricsDumper {
+    void passMetrics(List<SinkReturns.PassMetric> metrics);
+}
@@ -19,6 +19,8 @@ import java.util.NavigableMap;
 
 public class SinkDumperFactory implements DumperFactory {
     private static final List<OutputSinkFactory.SinkClass> justString = Collections.singletonList(OutputSinkFactory.SinkClass.STRING);
+    // Characters we'll buffer before handing a chunk to a DECOMPILED_CHUNKED sink.
+    static final int CHUNK_SIZE = 1 << 16;
     private final OutputSinkFactory sinkFactory;
     private Options options;
     private final int version;
@@ -40,9 +42,14 @@ public class SinkDumperFactory implements DumperFactory {
         return new SinkDumperFactory(this, version);
     }
 
+    @Override
+    public IncrementalManifest getIncrementalManifest() {
+        return null;
+    }
+
     @Override
     public Dumper getNewTopLevelDumper(JavaTypeInstance classType, SummaryDumper summaryDumper, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
-        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.JAVA, Arrays.asList(OutputSinkFactory.SinkClass.DECOMPILED_MULTIVER, OutputSinkFactory.SinkClass.DECOMPILED, OutputSinkFactory.SinkClass.TOKEN_STREAM, OutputSinkFactory.SinkClass.STRING));
+        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.JAVA, Arrays.asList(OutputSinkFactory.SinkClass.DECOMPILED_MULTIVER, OutputSinkFactory.SinkClass.DECOMPILED, OutputSinkFactory.SinkClass.DECOMPILED_CHUNKED, OutputSinkFactory.SinkClass.TOKEN_STREAM, OutputSinkFactory.SinkClass.STRING));
         if (supported == null) supported = justString;
         MethodErrorCollector methodErrorCollector = new SummaryDumperMethodErrorCollector(classType, summaryDumper);
         return getTopLevelDumper2(classType, typeUsageInformation, illegalIdentifierDump, supported, methodErrorCollector);
@@ -107,6 +114,8 @@ public class SinkDumperFactory implements DumperFactory {
                     return SinkSourceClassDumper(sinkFactory.<SinkReturns.Decompiled>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), version, classType, methodErrorCollector, typeUsageInformation, illegalIdentifierDump);
                 case DECOMPILED:
                     return SinkSourceClassDumper(sinkFactory.<SinkReturns.Decompiled>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), classType, methodErrorCollector, typeUsageInformation, illegalIdentifierDump);
+                case DECOMPILED_CHUNKED:
+                    return SinkChunkedSourceClassDumper(sinkFactory.<SinkReturns.DecompiledChunk>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), version, classType, methodErrorCollector, typeUsageInformation, illegalIdentifierDump);
                 case STRING:
                     return SinkStringClassDumper(sinkFactory.<String>getSink(OutputSinkFactory.SinkType.JAVA, sinkClass), methodErrorCollector, typeUsageInformation, illegalIdentifierDump);
                 case TOKEN_STREAM:
@@ -202,6 +211,78 @@ public class SinkDumperFactory implements DumperFactory {
         };
     }
 
+    /*
+     * Rather than building up the whole class, pass it on whenever we've buffered enough.
+     */
+    private Dumper SinkChunkedSourceClassDumper(final OutputSinkFactory.Sink<SinkReturns.DecompiledChunk> sink, final int version, JavaTypeInstance classType, MethodErrorCollector methodErrorCollector, TypeUsageInformation typeUsageInformation, IllegalIdentifierDump illegalIdentifierDump) {
+        final StringBuilder sb = new StringBuilder();
+        final Pair<String, String> names = ClassNameUtils.getPackageAndClassNames(classType);
+
+        return new StringStreamDumper(methodErrorCollector, sb, typeUsageInformation, options, illegalIdentifierDump, new MovableDumperContext()) {
+
+            @Override
+            protected void write(String s) {
+                super.write(s);
+                if (sb.length() >= CHUNK_SIZE) {
+                    flush(false);
+                }
+            }
+
+            @Override
+            protected void write(char c) {
+                super.write(c);
+                if (sb.length() >= CHUNK_SIZE) {
+                    flush(false);
+                }
+            }
+
+            @Override
+            public void close() {
+                if (sb.length() > 0) {
+                    flush(false);
+                }
+                flush(true);
+            }
+
+            private void flush(final boolean end) {
+                final String java = sb.toString();
+                sb.setLength(0);
+                SinkReturns.DecompiledChunk res = new SinkReturns.DecompiledChunk() {
+                    @Override
+                    public String getPackageName() {
+                        return names.getFirst();
+                    }
+
+                    @Override
+                    public String getClassName() {
+                        return names.getSecond();
+                    }
+
+                    @Override
+                    public int getRuntimeFrom() {
+                        return version;
+                    }
+
+                    @Override
+                    public CharSequence getJava() {
+                        return java;
+                    }
+
+                    @Override
+                    public boolean isEnd() {
+                        return end;
+                    }
+                };
+
+                sink.write(res);
+            }
+        };
+    }
+
+    @Override
+    public void finishOutput() {
+    }
+
     @Override
     public ProgressDumper getProgressDumper() {
         List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.PROGRESS, justString);
@@ -262,6 +343,59 @@ public class SinkDumperFactory implements DumperFactory {
         return new SinkStringExceptionDumper(stringSink);
     }
 
+    @Override
+    public MetricsDumper getMetricsDumper() {
+        List<OutputSinkFactory.SinkClass> supported = sinkFactory.getSupportedSinks(OutputSinkFactory.SinkType.METRICS, Arrays.asList(OutputSinkFactory.SinkClass.PASS_METRIC, OutputSinkFactory.SinkClass.STRING));
+        if (supported == null) supported = justString;
+        for (OutputSinkFactory.SinkClass sinkClass : supported) {
+            switch (sinkClass) {
+                case PASS_METRIC:
+                    return new SinkPassMetricDumper(sinkFactory.<SinkReturns.PassMetric>getSink(OutputSinkFactory.SinkType.METRICS, sinkClass));
+                case STRING:
+                    return new SinkStringMetricsDumper(sinkFactory.<String>getSink(OutputSinkFactory.SinkType.METRICS, sinkClass));
+                default:
+                    continue;
+            }
+        }
+        OutputSinkFactory.Sink<String> stringSink = sinkFactory.getSink(OutputSinkFactory.SinkType.METRICS, OutputSinkFactory.SinkClass.STRING);
+        if (stringSink == null) {
+            stringSink = new NopStringSink();
+        }
+        return new SinkStringMetricsDumper(stringSink);
+    }
+
+    private static class SinkPassMetricDumper implements MetricsDumper {
+        private final OutputSinkFactory.Sink<SinkReturns.PassMetric> sink;
+
+        SinkPassMetricDumper(OutputSinkFactory.Sink<SinkReturns.PassMetric> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void passMetrics(List<SinkReturns.PassMetric> metrics) {
+            if (sink == null) return;
+            for (SinkReturns.PassMetric metric : metrics) {
+                sink.write(metric);
+            }
+        }
+    }
+
+    private static class SinkStringMetricsDumper implements MetricsDumper {
+        private final OutputSinkFactory.Sink<String> sink;
+
+        SinkStringMetricsDumper(OutputSinkFactory.Sink<String> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void passMetrics(List<SinkReturns.PassMetric> metrics) {
+            if (sink == null) return;
+            for (SinkReturns.PassMetric metric : metrics) {
+                sink.write(metric.toString());
+            }
+        }
+    }
+
     private static class NopStringSink implements OutputSinkFactory.Sink<String> {
         @Override
         public void write(String sinkable) {
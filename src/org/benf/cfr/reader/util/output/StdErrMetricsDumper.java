@@ -0,0 +1,21 @@
+package org.benf.cfr.reader.util.output;
+
+import org.benf.cfr.reader.api.SinkReturns;
+import org.benf.cfr.reader.bytecode.PassMetrics;
+
+import java.util.List;
+
+public class StdErrMetricsDumper implements MetricsDumper {
+    private boolean headerDone;
+
+    @Override
+    public synchronized void passMetrics(List<SinkReturns.PassMetric> metrics) {
+        if (!headerDone) {
+            System.err.println(PassMetrics.HEADER);
+            headerDone = true;
+        }
+        for (SinkReturns.PassMetric metric : metrics) {
+            System.err.println(metric);
+        }
+    }
+}
@@ -22,6 +22,11 @@ public class StdIODumper extends StreamDumper {
         System.out.print(s);
     }
 
+    @Override
+    protected void write(char c) {
+        System.out.print(c);
+    }
+
     @Override
     public void addSummaryError(Method method, String s) {
     }
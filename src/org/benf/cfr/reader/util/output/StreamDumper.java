@@ -15,6 +15,17 @@ import org.benf.cfr.reader.util.getopt.OptionsImpl;
 import java.util.Set;
 
 public abstract class StreamDumper extends AbstractDumper {
+    // INDENTS[x] is x standard indents, so that we can write a line's indent in one go.
+    private static final String[] INDENTS = new String[16];
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (int x = 0; x < INDENTS.length; ++x) {
+            INDENTS[x] = sb.toString();
+            sb.append(STANDARD_INDENT);
+        }
+    }
+
     private final TypeUsageInformation typeUsageInformation;
     protected final Options options;
     protected final IllegalIdentifierDump illegalIdentifierDump;
@@ -51,14 +62,24 @@ public abstract class StreamDumper extends AbstractDumper {
 
     protected abstract void write(String s);
 
+    /*
+     * Targets which can take a single character should override this, rather than
+     * have a string made for every bracket and semicolon.
+     */
+    protected void write(char c) {
+        write(String.valueOf(c));
+    }
+
     @Override
     public Dumper label(String s, boolean inline) {
         processPendingCR();
         if (inline) {
             doIndent();
-            write(s + ": ");
+            write(s);
+            write(": ");
         } else {
-            write(s + ":");
+            write(s);
+            write(':');
             newln();
         }
         return this;
@@ -104,7 +125,15 @@ public abstract class StreamDumper extends AbstractDumper {
 
     @Override
     public Dumper print(char c) {
-        return print("" + c);
+        if (c == '\n' || (convertUTF && (c < 32 || c > 126))) {
+            return print(String.valueOf(c));
+        }
+        processPendingCR();
+        doIndent();
+        write(c);
+        context.atStart = false;
+        context.outputCount++;
+        return this;
     }
 
     @Override
@@ -134,7 +163,7 @@ public abstract class StreamDumper extends AbstractDumper {
     @Override
     public Dumper newln() {
         if (context.pendingCR) {
-            write("\n");
+            write('\n');
             context.currentLine++;
             if (context.atStart && context.inBlockComment != BlockCommentState.Not) {
                 doIndent();
@@ -148,7 +177,7 @@ public abstract class StreamDumper extends AbstractDumper {
 
     @Override
     public Dumper endCodeln() {
-        write(";");
+        write(';');
         context.pendingCR = true;
         context.atStart = true;
         context.outputCount++;
@@ -157,16 +186,22 @@ public abstract class StreamDumper extends AbstractDumper {
 
     private void doIndent() {
         if (!context.atStart) return;
-        for (int x = 0; x < context.indent; ++x) write(STANDARD_INDENT);
+        writeIndent(context.indent);
         context.atStart = false;
         if (context.inBlockComment != BlockCommentState.Not) {
             write (" * ");
         }
     }
 
+    private void writeIndent(int level) {
+        int max = INDENTS.length - 1;
+        for (; level > max; level -= max) write(INDENTS[max]);
+        if (level > 0) write(INDENTS[level]);
+    }
+
     private void processPendingCR() {
         if (context.pendingCR) {
-            write("\n");
+            write('\n');
             context.atStart = true;
             context.pendingCR = false;
             context.currentLine++;
@@ -29,6 +29,11 @@ public class StringStreamDumper extends StreamDumper {
     public void close() {
     }
 
+    @Override
+    protected void write(char c) {
+        stringBuilder.append(c);
+    }
+
     @Override
     public void addSummaryError(Method method, String s) {
         methodErrorCollector.addSummaryError(method, s);